@@ -0,0 +1,46 @@
+package fr.xgouchet.elmyr
+
+/**
+ * Describes how the elements of a collection are picked by a [Forge] (e.g.: to simulate skewed
+ * traffic on a cache or on sharded stores).
+ */
+sealed class Distribution {
+
+    /** All the elements are equally likely. */
+    object Uniform : Distribution()
+
+    /**
+     * The element at index i is picked with a probability proportional to 1 / (i + 1)^exponent:
+     * the first elements are the most frequent.
+     * @param exponent the exponent of the distribution (1 is the classic Zipf's law, 0 is uniform)
+     */
+    data class Zipf(val exponent: Double = 1.0) : Distribution() {
+        init {
+            require(exponent >= 0) { "The exponent ($exponent) must be a positive (or null) value" }
+        }
+    }
+
+    /**
+     * A fraction of the elements (the first ones) receives a fixed share of the picks (e.g.: 20% of
+     * the elements get 80% of the picks), the elements are uniformly picked within each group.
+     * @param hotFraction the fraction of the elements which are hot, between 0 and 1 (with 0, no
+     * element is hot and the elements are picked uniformly)
+     * @param hotProbability the probability to pick a hot element, between 0 and 1
+     */
+    data class Hotspot(
+        val hotFraction: Float = DEFAULT_HOT_FRACTION,
+        val hotProbability: Float = DEFAULT_HOT_PROBABILITY
+    ) : Distribution() {
+        init {
+            require(hotFraction in 0f..1f) { "The hot fraction ($hotFraction) must be between 0 and 1" }
+            require(hotProbability in 0f..1f) {
+                "The hot probability ($hotProbability) must be between 0 and 1"
+            }
+        }
+    }
+
+    internal companion object {
+        internal const val DEFAULT_HOT_FRACTION = 0.2f
+        internal const val DEFAULT_HOT_PROBABILITY = 0.8f
+    }
+}
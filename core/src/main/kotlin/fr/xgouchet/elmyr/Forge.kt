@@ -1,9 +1,23 @@
 package fr.xgouchet.elmyr
 
 import fr.xgouchet.elmyr.kotlin.ForgedSequence
+import fr.xgouchet.elmyr.kotlin.ForgedSpliterator
+import fr.xgouchet.elmyr.random.JavaUtilRandomSource
+import fr.xgouchet.elmyr.random.NormalDistribution
+import fr.xgouchet.elmyr.random.SplitMix64RandomSource
+import fr.xgouchet.elmyr.random.ZipfSampler
+import fr.xgouchet.elmyr.random.Ziggurat
+import fr.xgouchet.elmyr.regex.CacheStats
 import fr.xgouchet.elmyr.regex.RegexParser
-import java.util.Random
-import kotlin.math.abs
+import java.nio.channels.WritableByteChannel
+import java.nio.charset.Charset
+import java.util.EnumSet
+import java.util.concurrent.ForkJoinPool
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicReference
+import java.util.stream.Stream
+import java.util.stream.StreamSupport
+import kotlin.math.exp
 import kotlin.math.round
 import kotlin.math.roundToInt
 import kotlin.math.roundToLong
@@ -12,13 +26,22 @@ import kotlin.reflect.KClass
 
 /**
  * The base class to generate forgeries.
+ *
+ * @param rng the source of random numbers used for all forgeries. The default
+ * [JavaUtilRandomSource] keeps the raw random numbers drawn from a given seed identical to previous
+ * versions, but the values derived from them can differ (e.g.: bounded ints and longs, or gaussian
+ * values, which are now picked with other methods). Faster non synchronized sources are available
+ * in the [fr.xgouchet.elmyr.random] package.
  */
 @Suppress("TooManyFunctions", "MethodOverloading")
-open class Forge {
-
-    private val rng = Random()
+open class Forge
+@JvmOverloads constructor(
+    private val rng: RandomSource = JavaUtilRandomSource()
+) {
 
     private val factories: MutableMap<Class<*>, ForgeryFactory<*>> = mutableMapOf()
+    private val resolutions: MutableMap<Class<*>, ForgeryResolution> = HashMap()
+    private var zipfSampler: ZipfSampler? = null
     private val reflexiveFactory by lazy { ReflexiveFactory(this) }
 
     // region Reproducibility
@@ -30,8 +53,60 @@ open class Forge {
         set(value) {
             field = value
             rng.setSeed(seed)
+            splitCount = 0L
         }
 
+    // the number of forges split from this one since the seed was set
+    private var splitCount = 0L
+
+    init {
+        rng.setSeed(seed)
+    }
+
+    /**
+     * Creates a new forge, with the same factories and the same type of random source as this one,
+     * to generate forgeries in another thread. Its seed is derived from this forge's seed and from
+     * the number of forges already split from it, so that the forgeries of all the split forges can
+     * be reproduced from this forge's seed, whatever the order in which they are used.
+     *
+     * The split forges are statistically independent from this forge and from each other. Splitting
+     * a forge doesn't change the values this forge generates.
+     * @return a new forge
+     */
+    fun split(): Forge {
+        return derivedForge(seed, splitCount++, factories)
+    }
+
+    /**
+     * Creates several forges, as if calling [split] as many times.
+     * @param count the number of forges to create
+     * @return a list of new forges
+     * @see split
+     */
+    fun fork(count: Int): List<Forge> {
+        require(count >= 0) { "The count ($count) must be a positive (or null) value" }
+        return List(count) { split() }
+    }
+
+    /**
+     * @return a new forge, with the given factories and a seed derived from the given seed and index
+     */
+    private fun derivedForge(baseSeed: Long, index: Long, factories: Map<Class<*>, ForgeryFactory<*>>): Forge {
+        val child = Forge(rng.newInstance())
+        child.factories.putAll(factories)
+        child.seed = SplitMix64RandomSource.derive(baseSeed, index) and SEED_MASK
+        return child
+    }
+
+    /**
+     * @return a function creating the forge used for each chunk of a parallel generation
+     */
+    private fun chunkForges(): (Int) -> Forge {
+        val baseSeed = SplitMix64RandomSource.derive(seed, splitCount++) and SEED_MASK
+        val factoriesSnapshot = factories.toMap()
+        return { chunkIndex -> derivedForge(baseSeed, chunkIndex.toLong(), factoriesSnapshot) }
+    }
+
     // endregion
 
     // region Factory
@@ -55,6 +130,7 @@ open class Forge {
      */
     fun <T : Any> addFactory(clazz: Class<T>, forgeryFactory: ForgeryFactory<T>) {
         factories[clazz] = forgeryFactory
+        resolutions.clear()
     }
 
     /**
@@ -72,18 +148,8 @@ open class Forge {
      * @return a new instance of type T, randomly forged with available factories
      * @throws [IllegalArgumentException] if no compatible factory exists
      */
-    @Suppress("UNCHECKED_CAST")
     fun <T : Any> getForgery(clazz: Class<T>): T {
-        val strictMatch = factories[clazz] as? ForgeryFactory<T>
-        val fuzzyMatch = factories.filterKeys {
-            clazz.isAssignableFrom(it)
-        }.values
-        return when {
-            clazz.isEnum -> anElementFrom(*clazz.enumConstants)
-            strictMatch != null -> strictMatch.getForgery(this)
-            fuzzyMatch.isNotEmpty() -> (anElementFrom(fuzzyMatch.toList()) as ForgeryFactory<T>).getForgery(this)
-            else -> throw ForgeryFactoryMissingException(clazz = clazz)
-        }
+        return getResolvedForgery(clazz) { throw ForgeryFactoryMissingException(clazz = clazz) }
     }
 
     /**
@@ -92,19 +158,32 @@ open class Forge {
      * @return a new instance of type T, randomly forged with available factories
      * @throws [IllegalArgumentException] if no compatible factory exists
      */
-    @Suppress("UNCHECKED_CAST")
     fun <T : Any> getForgery(kClass: KClass<T>): T {
-        val jClass = kClass.java
-        val strictMatch = factories[jClass] as? ForgeryFactory<T>
-        val fuzzyMatch = factories.filterKeys {
-            jClass.isAssignableFrom(it)
-        }.values
-        return when {
-            jClass.isEnum -> anElementFrom(*jClass.enumConstants)
-            strictMatch != null -> strictMatch.getForgery(this)
-            fuzzyMatch.isNotEmpty() -> (anElementFrom(fuzzyMatch.toList()) as ForgeryFactory<T>).getForgery(this)
-            else -> reflexiveFactory.getForgery(kClass)
+        return getResolvedForgery(kClass.java) { reflexiveFactory.getForgery(kClass) }
+    }
+
+    /**
+     * @param clazz the [Class] of type T
+     * @param fallback the forgery to use when no compatible factory exists
+     * @return a forgery of the given type, using the (cached) resolution of the type
+     */
+    @Suppress("UNCHECKED_CAST")
+    private inline fun <T : Any> getResolvedForgery(clazz: Class<T>, fallback: () -> T): T {
+        val resolution = getResolution(clazz)
+        val enumConstants = resolution.enumConstants
+        val exactMatch = resolution.exactMatch
+        val assignableMatches = resolution.assignableMatches
+        val factory = when {
+            enumConstants != null -> return enumConstants[anInt(0, enumConstants.size)] as T
+            exactMatch != null -> exactMatch
+            assignableMatches.isNotEmpty() -> assignableMatches[anInt(0, assignableMatches.size)]
+            else -> return fallback()
         }
+        return (factory as ForgeryFactory<T>).getForgery(this)
+    }
+
+    private fun getResolution(clazz: Class<*>): ForgeryResolution {
+        return resolutions.getOrPut(clazz) { ForgeryResolution.resolve(clazz, factories) }
     }
 
     // endregion
@@ -136,10 +215,7 @@ open class Forge {
             "The ‘min’ boundary ($min) of the range should be less than the ‘max’ boundary ($max)"
         }
 
-        val range = max.toLong() - min.toLong()
-        val rn = (abs(rng.nextLong()) % range) + min
-
-        return (rn and MAX_INT).toInt()
+        return nextIntInRange(min, max.toLong() - min.toLong())
     }
 
     /**
@@ -210,7 +286,7 @@ open class Forge {
         return if (standardDeviation == 0) {
             mean
         } else {
-            val trueGaussian = round((rng.nextGaussian() * standardDeviation)).toInt() + mean
+            val trueGaussian = round((nextTruncatedGaussian() * standardDeviation)).toInt() + mean
             val maxDeviation = standardDeviation * MAX_DEVIATION_RATIO
             trueGaussian.coerceIn(mean - maxDeviation, mean + maxDeviation)
         }
@@ -232,13 +308,7 @@ open class Forge {
             "The ‘min’ boundary ($min) of the range should be less than the ‘max’ boundary ($max)"
         }
 
-        val range = max - min
-        return if (range < 0) {
-            val halfRange = (max / 2) - (min / 2)
-            ((abs(rng.nextLong()) % halfRange) * 2) + min
-        } else {
-            (abs(rng.nextLong()) % range) + min
-        }
+        return nextLongInRange(min, max - min)
     }
 
     /**
@@ -279,7 +349,7 @@ open class Forge {
         return if (standardDeviation == 0L) {
             mean
         } else {
-            val trueGaussian = (rng.nextGaussian() * standardDeviation).roundToLong() + mean
+            val trueGaussian = (nextTruncatedGaussian() * standardDeviation).roundToLong() + mean
             val maxDeviation = standardDeviation * MAX_DEVIATION_RATIO
             trueGaussian.coerceIn(mean - maxDeviation, mean + maxDeviation)
         }
@@ -302,13 +372,7 @@ open class Forge {
                 "the ‘max’ boundary ($max)"
         }
 
-        val range = max - min
-        val trueRandom = if (range == Float.POSITIVE_INFINITY) {
-            (rng.nextFloat() - HALF_PROBABILITY) * Float.MAX_VALUE * 2
-        } else {
-            (rng.nextFloat() * range) + min
-        }
-        return trueRandom.coerceIn(min, max)
+        return nextFloatInRange(min, max, max - min)
     }
 
     /**
@@ -352,7 +416,7 @@ open class Forge {
         return if (standardDeviation == 0f) {
             mean
         } else {
-            val trueGaussian = (rng.nextGaussian().toFloat() * standardDeviation) + mean
+            val trueGaussian = (nextTruncatedGaussian().toFloat() * standardDeviation) + mean
             val maxDeviation = standardDeviation * MAX_DEVIATION_RATIO
             trueGaussian.coerceIn(mean - maxDeviation, mean + maxDeviation)
         }
@@ -375,13 +439,7 @@ open class Forge {
                 "the ‘max’ boundary ($max)"
         }
 
-        val range = max - min
-        val trueRandom = if (range == Double.POSITIVE_INFINITY) {
-            (rng.nextDouble() - HALF_PROBABILITY) * Double.MAX_VALUE * 2
-        } else {
-            (rng.nextDouble() * range) + min
-        }
-        return trueRandom.coerceIn(min, max)
+        return nextDoubleInRange(min, max, max - min)
     }
 
     /**
@@ -425,7 +483,7 @@ open class Forge {
         return if (standardDeviation == 0.0) {
             mean
         } else {
-            val trueGaussian = (rng.nextGaussian() * standardDeviation) + mean
+            val trueGaussian = (nextTruncatedGaussian() * standardDeviation) + mean
             val maxDeviation = standardDeviation * MAX_DEVIATION_RATIO
             trueGaussian.coerceIn(mean - maxDeviation, mean + maxDeviation)
         }
@@ -433,11 +491,110 @@ open class Forge {
 
     // endregion
 
+    // region Continuous distributions
+
+    /**
+     * @param mean the mean value of the distribution (default : 1)
+     * @return a positive double picked from an exponential distribution (e.g.: the delay between
+     * two independent events)
+     * @throws [IllegalArgumentException] if the mean is not strictly positive
+     */
+    @JvmOverloads
+    fun anExponentialDouble(mean: Double = 1.0): Double {
+        require(mean > 0) { "The mean ($mean) must be a strictly positive value" }
+
+        return Ziggurat.nextExponential(rng) * mean
+    }
+
+    /**
+     * @param mu the mean of the natural logarithm of the values (default : 0)
+     * @param sigma the standard deviation of the natural logarithm of the values (default : 1)
+     * @return a positive double picked from a log-normal distribution (e.g.: response times)
+     * @throws [IllegalArgumentException] if sigma is negative
+     */
+    @JvmOverloads
+    fun aLogNormalDouble(mu: Double = 0.0, sigma: Double = 1.0): Double {
+        require(sigma >= 0) { "Sigma ($sigma) must be a positive (or null) value" }
+
+        return exp(mu + (rng.nextGaussian() * sigma))
+    }
+
+    /**
+     * @param scale the minimum value of the distribution (default : 1)
+     * @param shape the shape of the distribution, the lower the heavier its tail (default : 1)
+     * @return a double greater than (or equal to) the scale, picked from a Pareto distribution
+     * (e.g.: payload sizes)
+     * @throws [IllegalArgumentException] if the scale or the shape are not strictly positive
+     */
+    @JvmOverloads
+    fun aParetoDouble(scale: Double = 1.0, shape: Double = 1.0): Double {
+        require(scale > 0) { "The scale ($scale) must be a strictly positive value" }
+        require(shape > 0) { "The shape ($shape) must be a strictly positive value" }
+
+        // if E follows an exponential distribution, scale × e^(E / shape) follows a Pareto distribution
+        return scale * exp(Ziggurat.nextExponential(rng) / shape)
+    }
+
+    // endregion
+
+    // region Skewed distributions
+
+    /**
+     * @param n the number of possible values
+     * @param exponent the exponent of the distribution, the higher the more skewed (default : 1)
+     * @return an int between 0 (inclusive) and n (exclusive), where the value i is picked with a
+     * probability proportional to 1 / (i + 1)^exponent (e.g.: the popularity of cached keys)
+     * @throws [IllegalArgumentException] if n is not strictly positive or if the exponent is negative
+     */
+    @JvmOverloads
+    fun aZipfInt(n: Int, exponent: Double = 1.0): Int {
+        val cachedSampler = zipfSampler
+        val sampler = if (cachedSampler != null && cachedSampler.n == n && cachedSampler.exponent == exponent) {
+            cachedSampler
+        } else {
+            ZipfSampler(n, exponent).also { zipfSampler = it }
+        }
+        return sampler.next(rng) - 1
+    }
+
+    /**
+     * @param n the number of possible values
+     * @param hotFraction the fraction of the values which are hot, between 0 and 1 (default : 0.2).
+     * A positive fraction makes at least one value hot, while 0 makes no value hot (the values are
+     * then picked uniformly).
+     * @param hotProbability the probability to pick a hot value, between 0 and 1 (default : 0.8)
+     * @return an int between 0 (inclusive) and n (exclusive), where the first values (the hot ones)
+     * are picked with the given probability (e.g.: 20% of the values are picked 80% of the time)
+     * @throws [IllegalArgumentException] if n is not strictly positive or if the fraction or the
+     * probability are not between 0 and 1
+     */
+    @JvmOverloads
+    fun aHotspotInt(
+        n: Int,
+        hotFraction: Float = Distribution.DEFAULT_HOT_FRACTION,
+        hotProbability: Float = Distribution.DEFAULT_HOT_PROBABILITY
+    ): Int {
+        require(n > 0) { "The number of values ($n) must be strictly positive" }
+        require(hotFraction in 0f..1f) { "The hot fraction ($hotFraction) must be between 0 and 1" }
+        require(hotProbability in 0f..1f) { "The hot probability ($hotProbability) must be between 0 and 1" }
+
+        if (hotFraction == 0f) return anInt(0, n)
+
+        val hotCount = (n * hotFraction.toDouble()).roundToInt().coerceIn(1, n)
+        return if (hotCount == n || rng.nextFloat() < hotProbability) {
+            anInt(0, hotCount)
+        } else {
+            anInt(hotCount, n)
+        }
+    }
+
+    // endregion
+
     // region Char
 
     /**
      * @param min the min char code to use (inclusive, default = 0x20 == space)
-     * @param max the max char code to use (exclusive, default = 0xD800)
+     * @param max the max char code to use (exclusive, default = 0xD000)
      * @return a Char within the given range
      */
     @JvmOverloads
@@ -445,7 +602,7 @@ open class Forge {
         var c: Char
         do {
             c = anInt(min.code, max.code).toChar()
-        } while (c in ILLEGAL_UTF8_CHARS)
+        } while (isIllegalChar(c))
         return c
     }
 
@@ -610,8 +767,7 @@ open class Forge {
      * @return a String matching the given regular expression
      */
     fun aStringMatching(regex: String): String {
-        val factory = RegexParser().getFactory(regex)
-        return factory.getForgery(this)
+        return compileRegex(regex).getForgery(this)
     }
 
     /**
@@ -626,6 +782,308 @@ open class Forge {
         return aStringMatching(regex.pattern)
     }
 
+    /**
+     * @param regex a regular expression to drive the generation.
+     * @param minLength the minimum length of the String (inclusive)
+     * @param maxLength the maximum length of the String (inclusive)
+     *
+     * The quantities of repeated patterns are picked so that the String is guaranteed to fit in the
+     * length range (unbounded quantifiers like `*` or `+` can repeat as much as needed). Lengths are
+     * counted in chars (like [String.length]), and back references are not supported.
+     *
+     * @return a String matching the given regular expression, with a length in the given range
+     */
+    fun aStringMatching(regex: String, minLength: Int, maxLength: Int): String {
+        require(minLength >= 0) {
+            "The minimum length ($minLength) must be a positive (or null) value"
+        }
+        require(minLength <= maxLength) {
+            "The ‘min’ length ($minLength) should be less than (or equal to) the ‘max’ length ($maxLength)"
+        }
+        return RegexParser.shared.getFactory(regex).getForgery(this, minLength, maxLength)
+    }
+
+    /**
+     * @param regex a regular expression to drive the generation.
+     * @param minLength the minimum length of the String (inclusive)
+     * @param maxLength the maximum length of the String (inclusive)
+     *
+     * The quantities of repeated patterns are picked so that the String is guaranteed to fit in the
+     * length range (unbounded quantifiers like `*` or `+` can repeat as much as needed). Lengths are
+     * counted in chars (like [String.length]), and back references are not supported.
+     *
+     * @return a String matching the given regular expression, with a length in the given range
+     */
+    fun aStringMatching(regex: Regex, minLength: Int, maxLength: Int): String {
+        return aStringMatching(regex.pattern, minLength, maxLength)
+    }
+
+    /**
+     * @param regex a regular expression to drive the generation.
+     * @param minLength the minimum length of the String (inclusive)
+     * @param maxLength the maximum length of the String (inclusive)
+     *
+     * Unlike [aStringMatching], which favors some shapes (e.g.: short alternatives), this picks a
+     * length in the range, then picks the String uniformly among all the Strings matching the regex
+     * with that length. The regex is converted into an automaton, which can take some time on
+     * complex regexes. Lengths are counted in chars (like [String.length]), and back references are
+     * not supported. The number of matching Strings grows exponentially with the length, so the
+     * maximum length is limited to 1024 chars.
+     *
+     * @return a String matching the given regular expression, with a length in the given range
+     * @throws [IllegalArgumentException] if the length range is invalid, or if the maximum length is
+     * above 1024
+     */
+    fun aUniformStringMatching(regex: String, minLength: Int, maxLength: Int): String {
+        require(minLength >= 0) {
+            "The minimum length ($minLength) must be a positive (or null) value"
+        }
+        require(minLength <= maxLength) {
+            "The ‘min’ length ($minLength) should be less than (or equal to) the ‘max’ length ($maxLength)"
+        }
+        require(maxLength <= MAX_UNIFORM_LENGTH) {
+            "The maximum length ($maxLength) must be less than (or equal to) $MAX_UNIFORM_LENGTH"
+        }
+        return RegexParser.shared.getFactory(regex).getUniformForgery(this, minLength, maxLength)
+    }
+
+    /**
+     * @param regex a regular expression to drive the generation.
+     * @param minLength the minimum length of the String (inclusive)
+     * @param maxLength the maximum length of the String (inclusive)
+     *
+     * Unlike [aStringMatching], which favors some shapes (e.g.: short alternatives), this picks a
+     * length in the range, then picks the String uniformly among all the Strings matching the regex
+     * with that length. The regex is converted into an automaton, which can take some time on
+     * complex regexes. Lengths are counted in chars (like [String.length]), and back references are
+     * not supported. The number of matching Strings grows exponentially with the length, so the
+     * maximum length is limited to 1024 chars.
+     *
+     * @return a String matching the given regular expression, with a length in the given range
+     * @throws [IllegalArgumentException] if the length range is invalid, or if the maximum length is
+     * above 1024
+     */
+    fun aUniformStringMatching(regex: Regex, minLength: Int, maxLength: Int): String {
+        return aUniformStringMatching(regex.pattern, minLength, maxLength)
+    }
+
+    /**
+     * @param regex a regular expression that the generated String must not match.
+     * @param minLength the minimum length of the String (inclusive)
+     * @param maxLength the maximum length of the String (inclusive)
+     *
+     * This picks a length in the range, then picks the String uniformly among all the Strings with
+     * that length which don't match the regex, made of printable characters (and of the characters
+     * used in the regex), without generating and discarding candidates. The regex is converted into
+     * an automaton, which can take some time on complex regexes. Lengths are counted in chars (like
+     * [String.length]), and back references are not supported. The maximum length is limited to
+     * 1024 chars (like with [aUniformStringMatching]).
+     *
+     * @return a String not matching the given regular expression
+     * @throws [IllegalArgumentException] if the length range is invalid, if the maximum length is
+     * above 1024, or if no String with a length in the range can avoid matching the regex
+     */
+    @JvmOverloads
+    fun aStringNotMatching(regex: String, minLength: Int = 0, maxLength: Int = TINY_THRESHOLD): String {
+        require(minLength >= 0) {
+            "The minimum length ($minLength) must be a positive (or null) value"
+        }
+        require(minLength <= maxLength) {
+            "The ‘min’ length ($minLength) should be less than (or equal to) the ‘max’ length ($maxLength)"
+        }
+        require(maxLength <= MAX_UNIFORM_LENGTH) {
+            "The maximum length ($maxLength) must be less than (or equal to) $MAX_UNIFORM_LENGTH"
+        }
+        return RegexParser.shared.getFactory(regex).getNonMatchingForgery(this, minLength, maxLength)
+    }
+
+    /**
+     * @param regex a regular expression that the generated String must not match.
+     * @param minLength the minimum length of the String (inclusive)
+     * @param maxLength the maximum length of the String (inclusive)
+     *
+     * This picks a length in the range, then picks the String uniformly among all the Strings with
+     * that length which don't match the regex, made of printable characters (and of the characters
+     * used in the regex), without generating and discarding candidates. The regex is converted into
+     * an automaton, which can take some time on complex regexes. Lengths are counted in chars (like
+     * [String.length]), and back references are not supported. The maximum length is limited to
+     * 1024 chars (like with [aUniformStringMatching]).
+     *
+     * @return a String not matching the given regular expression
+     * @throws [IllegalArgumentException] if the length range is invalid, if the maximum length is
+     * above 1024, or if no String with a length in the range can avoid matching the regex
+     */
+    @JvmOverloads
+    fun aStringNotMatching(regex: Regex, minLength: Int = 0, maxLength: Int = TINY_THRESHOLD): String {
+        return aStringNotMatching(regex.pattern, minLength, maxLength)
+    }
+
+    /**
+     * @param regex a regular expression that the generated String must nearly match.
+     *
+     * A String matching the regex is generated, then edited at a single position (replacing,
+     * inserting or deleting a character) so that it doesn't match anymore. This is useful to test
+     * validators with invalid inputs close to valid ones. The regex is converted into an automaton,
+     * and back references are not supported.
+     *
+     * @return a String not matching the given regular expression, one edit away from a match
+     */
+    fun aStringNearlyMatching(regex: String): String {
+        return RegexParser.shared.getFactory(regex).getNearMissForgery(this)
+    }
+
+    /**
+     * @param regex a regular expression that the generated String must nearly match.
+     *
+     * A String matching the regex is generated, then edited at a single position (replacing,
+     * inserting or deleting a character) so that it doesn't match anymore. This is useful to test
+     * validators with invalid inputs close to valid ones. The regex is converted into an automaton,
+     * and back references are not supported.
+     *
+     * @return a String not matching the given regular expression, one edit away from a match
+     */
+    fun aStringNearlyMatching(regex: Regex): String {
+        return aStringNearlyMatching(regex.pattern)
+    }
+
+    /**
+     * Compiles a regular expression into a reusable [ForgeryFactory], which can be held onto when
+     * generating many Strings matching the same regex.
+     *
+     * Compiled regexes are kept in a cache shared by all forges, so calling this method repeatedly
+     * with the same pattern only parses it once. The returned factory is immutable and can safely be
+     * used from several threads at once (e.g.: parallel test workers), each with its own [Forge].
+     *
+     * @param regex a regular expression to drive the generation.
+     * @return a [ForgeryFactory] creating Strings matching the given regular expression
+     * @see [Forge.regexCacheStats]
+     */
+    fun compileRegex(regex: String): ForgeryFactory<String> {
+        return RegexParser.shared.getFactory(regex)
+    }
+
+    /**
+     * Compiles a regular expression into a reusable [ForgeryFactory], which can be held onto when
+     * generating many Strings matching the same regex.
+     *
+     * @param regex a regular expression to drive the generation.
+     * @return a [ForgeryFactory] creating Strings matching the given regular expression
+     * @see [Forge.regexCacheStats]
+     */
+    fun compileRegex(regex: Regex): ForgeryFactory<String> {
+        return compileRegex(regex.pattern)
+    }
+
+    /**
+     * Creates a list of Strings matching a regular expression. The regex is only parsed once, and
+     * all the Strings are generated with the same buffer.
+     * @param regex a regular expression to drive the generation.
+     * @param size the size of the list, or -1 for a random size
+     * @return a list of Strings matching the given regular expression
+     */
+    @JvmOverloads
+    fun aListMatching(regex: String, size: Int = -1): List<String> {
+        val listSize = if (size < 0) aTinyInt() else size
+        return RegexParser.shared.getFactory(regex).getForgeries(this, listSize)
+    }
+
+    /**
+     * Creates a list of Strings matching a regular expression. The regex is only parsed once, and
+     * all the Strings are generated with the same buffer.
+     * @param regex a regular expression to drive the generation.
+     * @param size the size of the list, or -1 for a random size
+     * @return a list of Strings matching the given regular expression
+     */
+    @JvmOverloads
+    fun aListMatching(regex: Regex, size: Int = -1): List<String> {
+        return aListMatching(regex.pattern, size)
+    }
+
+    /**
+     * Creates a sequence of Strings matching a regular expression. The Strings are only generated
+     * when iterating over the sequence, all with the same buffer.
+     * @param regex a regular expression to drive the generation.
+     * @param size the size of the sequence, or -1 for a random size
+     * @return a sequence of Strings matching the given regular expression
+     */
+    @JvmOverloads
+    fun aSequenceMatching(regex: String, size: Int = -1): Sequence<String> {
+        val sequenceSize = if (size < 0) aTinyInt() else size
+        return RegexParser.shared.getFactory(regex).getForgerySequence(this, sequenceSize)
+    }
+
+    /**
+     * Creates a sequence of Strings matching a regular expression. The Strings are only generated
+     * when iterating over the sequence, all with the same buffer.
+     * @param regex a regular expression to drive the generation.
+     * @param size the size of the sequence, or -1 for a random size
+     * @return a sequence of Strings matching the given regular expression
+     */
+    @JvmOverloads
+    fun aSequenceMatching(regex: Regex, size: Int = -1): Sequence<String> {
+        return aSequenceMatching(regex.pattern, size)
+    }
+
+    /**
+     * Appends a String matching a regular expression to the given [Appendable], without creating an
+     * intermediate String. Unless the appendable is a [StringBuilder], the String is streamed in fixed
+     * size chunks, so that huge Strings (e.g.: `"[A-Z]{1000000}"`) can be written to a
+     * [java.io.Writer] or a [java.nio.CharBuffer] with a constant memory usage.
+     * @param A the type of [Appendable]
+     * @param regex a regular expression to drive the generation.
+     * @param appendable the appendable to write to
+     * @return the given appendable
+     */
+    fun <A : Appendable> appendMatching(regex: String, appendable: A): A {
+        RegexParser.shared.getFactory(regex).appendForgery(this, appendable)
+        return appendable
+    }
+
+    /**
+     * Appends a String matching a regular expression to the given [Appendable], without creating an
+     * intermediate String. Unless the appendable is a [StringBuilder], the String is streamed in fixed
+     * size chunks, so that huge Strings (e.g.: `"[A-Z]{1000000}"`) can be written to a
+     * [java.io.Writer] or a [java.nio.CharBuffer] with a constant memory usage.
+     * @param A the type of [Appendable]
+     * @param regex a regular expression to drive the generation.
+     * @param appendable the appendable to write to
+     * @return the given appendable
+     */
+    fun <A : Appendable> appendMatching(regex: Regex, appendable: A): A {
+        return appendMatching(regex.pattern, appendable)
+    }
+
+    /**
+     * Writes a String matching a regular expression to the given channel, without creating an
+     * intermediate String. The String is streamed in fixed size chunks, so that huge Strings (e.g.:
+     * `"[A-Z]{1000000}"`) can be written with a constant memory usage. The channel is not closed.
+     * @param C the type of [WritableByteChannel]
+     * @param regex a regular expression to drive the generation.
+     * @param channel the channel to write to
+     * @param charset the charset used to encode the String
+     * @return the given channel
+     */
+    @JvmOverloads
+    fun <C : WritableByteChannel> writeMatching(regex: String, channel: C, charset: Charset = Charsets.UTF_8): C {
+        RegexParser.shared.getFactory(regex).writeForgery(this, channel, charset)
+        return channel
+    }
+
+    /**
+     * Writes a String matching a regular expression to the given channel, without creating an
+     * intermediate String. The String is streamed in fixed size chunks, so that huge Strings (e.g.:
+     * `"[A-Z]{1000000}"`) can be written with a constant memory usage. The channel is not closed.
+     * @param C the type of [WritableByteChannel]
+     * @param regex a regular expression to drive the generation.
+     * @param channel the channel to write to
+     * @param charset the charset used to encode the String
+     * @return the given channel
+     */
+    @JvmOverloads
+    fun <C : WritableByteChannel> writeMatching(regex: Regex, channel: C, charset: Charset = Charsets.UTF_8): C {
+        return writeMatching(regex.pattern, channel, charset)
+    }
+
     /**
      * Randomizes the case of a String.
      * @param string the string to randomize
@@ -704,6 +1162,8 @@ open class Forge {
      * @param T the type of elements in the Set
      * @param set a non empty Set
      * @return an element “randomly” picked in the set
+     * @see [samplerOf] to pick many elements from the same set (this method walks through the set
+     * up to the picked element)
      */
     fun <T> anElementFrom(set: Set<T>): T {
         val index = anInt(0, set.size)
@@ -720,6 +1180,22 @@ open class Forge {
         return list[index]
     }
 
+    /**
+     * @param T the type of elements in the List
+     * @param list a non empty List
+     * @param distribution the distribution of the picked indices (e.g.: [Distribution.Zipf] to pick
+     * the first elements more often)
+     * @return an element “randomly” picked in the list
+     */
+    fun <T> anElementFrom(list: List<T>, distribution: Distribution): T {
+        val index = when (distribution) {
+            Distribution.Uniform -> anInt(0, list.size)
+            is Distribution.Zipf -> aZipfInt(list.size, distribution.exponent)
+            is Distribution.Hotspot -> aHotspotInt(list.size, distribution.hotFraction, distribution.hotProbability)
+        }
+        return list[index]
+    }
+
     /**
      * @param T the type of elements in the vararg params
      * @param array a vararg entries
@@ -730,6 +1206,55 @@ open class Forge {
         return array[index]
     }
 
+    /**
+     * A convenience to pick from small arrays: each call validates the weights and walks through
+     * them once. When picking many elements from the same weighted catalog, use a [WeightedSampler]
+     * instead, which picks each element in constant time.
+     * @param T the type of elements in the array
+     * @param array a non empty array
+     * @param weights the weight of each element in the array (if empty, all elements are equally likely)
+     * @return an element “randomly” picked in the array, with a probability proportional to its weight
+     * @throws [IllegalArgumentException] if the weights don't match the array's size, if a weight is
+     * negative or not finite, or if all the weights are null
+     */
+    fun <T : Any> anElementFrom(array: Array<T>, weights: DoubleArray): T {
+        if (weights.isEmpty()) return anElementFrom(*array)
+
+        require(weights.size == array.size) {
+            "The number of weights (${weights.size}) must match the number of elements (${array.size})"
+        }
+        var total = 0.0
+        weights.forEachIndexed { i, weight ->
+            require(weight >= 0 && weight.isFinite()) {
+                "The weight of ${array[i]} ($weight) must be a positive (or null) finite value"
+            }
+            total += weight
+        }
+        require(total > 0 && total.isFinite()) { "The sum of the weights ($total) must be a strictly positive value" }
+
+        // the last element with a positive weight absorbs the rounding errors of the cumulative sum
+        val target = aDouble(0.0, total)
+        var cumulative = 0.0
+        var picked = -1
+        for (i in weights.indices) {
+            if (weights[i] > 0) {
+                picked = i
+                cumulative += weights[i]
+                if (target < cumulative) break
+            }
+        }
+        return array[picked]
+    }
+
+    /**
+     * @param T the type of elements in the sampler
+     * @param sampler a weighted sampler
+     * @return an element “randomly” picked by the sampler, with a probability proportional to its weight
+     */
+    fun <T : Any> anElementFrom(sampler: WeightedSampler<T>): T {
+        return sampler.getForgery(this)
+    }
+
     /**
      * @param array a non empty BooleanArray
      * @return an element “randomly” picked in the array
@@ -789,6 +1314,8 @@ open class Forge {
      * @param V the type of values in the map
      * @param map a non empty Map
      * @return an element “randomly” picked in the set
+     * @see [samplerOf] to pick many entries from the same map (this method walks through the map
+     * up to the picked entry)
      */
     fun <K, V> anEntryFrom(map: Map<K, V>): Map.Entry<K, V> {
         val index = anInt(0, map.size)
@@ -815,6 +1342,34 @@ open class Forge {
         return anEntryFrom(map).value
     }
 
+    /**
+     * @param T the type of elements in the collection
+     * @param collection a non empty collection
+     * @return a sampler picking elements from a snapshot of the collection in constant time
+     */
+    fun <T : Any> samplerOf(collection: Collection<T>): SnapshotSampler<T> {
+        return SnapshotSampler(collection)
+    }
+
+    /**
+     * @param K the type of keys in the map
+     * @param V the type of values in the map
+     * @param map a non empty map
+     * @return a sampler picking entries from a snapshot of the map in constant time
+     */
+    fun <K : Any, V : Any> samplerOf(map: Map<K, V>): SnapshotSampler<Map.Entry<K, V>> {
+        return SnapshotSampler(map.entries)
+    }
+
+    /**
+     * @param T the type of elements in the sampler
+     * @param sampler a snapshot sampler
+     * @return an element “randomly” picked by the sampler
+     */
+    fun <T : Any> anElementFrom(sampler: SnapshotSampler<T>): T {
+        return sampler.getForgery(this)
+    }
+
     // endregion
 
     // region Collection manipulation
@@ -840,28 +1395,8 @@ open class Forge {
         // fast exit : output <= 0
         if (listSize <= 0) return emptyList()
 
-        val inputSize = list.size
-        val result = ArrayList<T>(listSize)
-        val rng = Random()
-
-        var numberOfItemsToChooseFrom: Int
-        var numberOfItemsToSelect = listSize
-
-        var i = 0
-        while (i < inputSize && numberOfItemsToSelect > 0) {
-
-            numberOfItemsToChooseFrom = inputSize - i
-            val probabilityToSelectCurrent =
-                numberOfItemsToSelect.toDouble() / numberOfItemsToChooseFrom.toDouble()
-            val randomProbability = rng.nextDouble()
-
-            if (randomProbability < probabilityToSelectCurrent) {
-                numberOfItemsToSelect--
-                result.add(list[i])
-            }
-            i++
-        }
-        return result
+        val indices = pickDistinctIndices(list.size, listSize)
+        return collectElementsAt(list, indices, ArrayList(listSize))
     }
 
     /**
@@ -882,29 +1417,8 @@ open class Forge {
         // fast exit : output == 0
         if (setSize == 0) return emptySet()
 
-        val setList = set.toList()
-        val inputSize = set.size
-        val result = HashSet<T>(setSize)
-        val rng = Random()
-
-        var numberOfItemsToChooseFrom: Int
-        var numberOfItemsToSelect = setSize
-
-        var i = 0
-        while (i < inputSize && numberOfItemsToSelect > 0) {
-
-            numberOfItemsToChooseFrom = inputSize - i
-            val probabilityToSelectCurrent =
-                numberOfItemsToSelect.toDouble() / numberOfItemsToChooseFrom.toDouble()
-            val randomProbability = rng.nextDouble()
-
-            if (randomProbability < probabilityToSelectCurrent) {
-                numberOfItemsToSelect--
-                result.add(setList[i])
-            }
-            i++
-        }
-        return result
+        val indices = pickDistinctIndices(set.size, setSize)
+        return collectElementsAt(set, indices, HashSet(setSize))
     }
 
     /**
@@ -918,14 +1432,7 @@ open class Forge {
         if (list.isEmpty()) return emptyList()
 
         val result = list.toMutableList()
-
-        for (i in 0..(list.size - 2)) {
-            val j = anInt(i, list.size)
-            val temp = result[i]
-            result[i] = result[j]
-            result[j] = temp
-        }
-
+        shuffleInPlace(result)
         return result
     }
 
@@ -940,15 +1447,62 @@ open class Forge {
         if (array.isEmpty()) return array
 
         val result = Array<T>(array.size) { array[it] }
+        shuffleInPlace(result)
+        return result
+    }
+
+    /**
+     * Shuffles the order of the elements in a list, without copying it. For a given seed, the
+     * elements end up in the same order as with [shuffle].
+     * @param T the type of elements in the List
+     * @param list the list to shuffle
+     */
+    fun <T> shuffleInPlace(list: MutableList<T>) {
+        if (list is RandomAccess) {
+            for (i in 0..(list.size - 2)) {
+                val j = anInt(i, list.size)
+                val temp = list[i]
+                list[i] = list[j]
+                list[j] = temp
+            }
+        } else {
+            // shuffling a linked list by index would be quadratic
+            val shuffled = ArrayList(list)
+            shuffleInPlace(shuffled)
+            val iterator = list.listIterator()
+            shuffled.forEach {
+                iterator.next()
+                iterator.set(it)
+            }
+        }
+    }
 
+    /**
+     * Shuffles the order of the elements in an array, without copying it. For a given seed, the
+     * elements end up in the same order as with [shuffle].
+     * @param T the type of elements in the Array
+     * @param array the array to shuffle
+     */
+    fun <T> shuffleInPlace(array: Array<T>) {
         for (i in 0..(array.size - 2)) {
             val j = anInt(i, array.size)
-            val temp = result[i]
-            result[i] = result[j]
-            result[j] = temp
+            val temp = array[i]
+            array[i] = array[j]
+            array[j] = temp
         }
+    }
 
-        return result
+    /**
+     * Shuffles the order of the elements in an array, without copying nor boxing them.
+     * @param array the array to shuffle
+     */
+    fun shuffleInPlace(array: IntArray) {
+        for (i in 0..(array.size - 2)) {
+            val j = anInt(i, array.size)
+            val temp = array[i]
+            array[i] = array[j]
+            array[j] = temp
+        }
     }
 
     // endregion
@@ -985,6 +1539,83 @@ open class Forge {
         return list
     }
 
+    /**
+     * Creates a random list, generated in parallel on several threads.
+     *
+     * The list is generated by chunks, each one with its own forge split from this forge (with the
+     * same factories), so that the result only depends on this forge's seed, and not on the
+     * parallelism. The forging lambda is called concurrently, on forges other than this one. The
+     * chunks are forged on the calling thread and on the [ForkJoinPool.commonPool], and a list
+     * fitting in a single chunk is forged on the calling thread only.
+     * @param T The type of elements in the list
+     * @param size the size of the list, or -1 for a random size
+     * @param parallelism the maximum number of threads to use (including the calling thread)
+     * @param forging a lambda generating values that will fill the list
+     * @see split
+     */
+    @Suppress("UNCHECKED_CAST", "TooGenericExceptionCaught")
+    fun <T> aParallelList(
+        size: Int = -1,
+        parallelism: Int = Runtime.getRuntime().availableProcessors(),
+        forging: Forge.() -> T
+    ): List<T> {
+        require(parallelism > 0) { "The parallelism ($parallelism) must be strictly positive" }
+        val listSize = if (size < 0) aTinyInt() else size
+        val chunkForge = chunkForges()
+        val elements = arrayOfNulls<Any?>(listSize)
+
+        val chunkCount = (listSize + PARALLEL_CHUNK_SIZE - 1) / PARALLEL_CHUNK_SIZE
+        val forgeChunk = { chunkIndex: Int ->
+            val forge = chunkForge(chunkIndex)
+            val start = chunkIndex * PARALLEL_CHUNK_SIZE
+            for (i in start until minOf(start + PARALLEL_CHUNK_SIZE, listSize)) {
+                elements[i] = forge.forging()
+            }
+        }
+
+        val workerCount = minOf(parallelism, chunkCount)
+        if (workerCount <= 1) {
+            for (chunkIndex in 0 until chunkCount) forgeChunk(chunkIndex)
+        } else {
+            // each worker forges the next available chunk, until all chunks are forged or one fails
+            val nextChunk = AtomicInteger()
+            val failure = AtomicReference<Throwable?>()
+            val worker = Runnable {
+                var chunkIndex = nextChunk.getAndIncrement()
+                while (chunkIndex < chunkCount && failure.get() == null) {
+                    try {
+                        forgeChunk(chunkIndex)
+                    } catch (e: Throwable) {
+                        failure.compareAndSet(null, e)
+                    }
+                    chunkIndex = nextChunk.getAndIncrement()
+                }
+            }
+            val tasks = List(workerCount - 1) { ForkJoinPool.commonPool().submit(worker) }
+            worker.run()
+            tasks.forEach { it.join() }
+            failure.get()?.let { throw it }
+        }
+
+        return elements.asList() as List<T>
+    }
+
+    /**
+     * Creates a random parallel [Stream]. The elements are generated lazily when the stream is
+     * consumed, by chunks, each one with its own forge split from this forge (with the same
+     * factories), so that the elements only depend on this forge's seed (and match the elements of
+     * [aParallelList] for the same seed), and not on the number of threads consuming the stream.
+     * @param T The type of elements in the stream
+     * @param size the size of the stream, or -1 for a random size
+     * @param forging a lambda generating values that will fill the stream
+     * @see split
+     */
+    fun <T> aParallelStream(size: Int = -1, forging: Forge.() -> T): Stream<T> {
+        val streamSize = if (size < 0) aTinyInt() else size
+        val spliterator = ForgedSpliterator(0, streamSize, PARALLEL_CHUNK_SIZE, chunkForges(), forging)
+        return StreamSupport.stream(spliterator, true)
+    }
+
     /**
      * Creates a random set.
      * @param T The type of elements in the set
@@ -1040,6 +1671,306 @@ open class Forge {
 
     // endregion
 
+    // region Primitive arrays
+
+    /**
+     * Creates a random [IntArray], without boxing its elements.
+     * @param size the size of the array, or -1 for a random size
+     * @param min the minimum value (inclusive), default = Int#MIN_VALUE
+     * @param max the maximum value (exclusive), default = Int#MAX_VALUE
+     * @return an array of ints between min and max
+     * @throws [IllegalArgumentException] if min >= max
+     */
+    @JvmOverloads
+    fun anIntArray(size: Int = -1, min: Int = Int.MIN_VALUE, max: Int = Int.MAX_VALUE): IntArray {
+        require(min < max) {
+            "The ‘min’ boundary ($min) of the range should be less than the ‘max’ boundary ($max)"
+        }
+
+        val range = max.toLong() - min.toLong()
+        val array = IntArray(if (size < 0) aTinyInt() else size)
+        for (i in array.indices) {
+            array[i] = nextIntInRange(min, range)
+        }
+        return array
+    }
+
+    /**
+     * Creates a random [LongArray], without boxing its elements.
+     * @param size the size of the array, or -1 for a random size
+     * @param min the minimum value (inclusive), default = [Long.MIN_VALUE]
+     * @param max the maximum value (exclusive), default = [Long.MAX_VALUE]
+     * @return an array of longs between min and max
+     * @throws [IllegalArgumentException] if min >= max
+     */
+    @JvmOverloads
+    fun aLongArray(size: Int = -1, min: Long = Long.MIN_VALUE, max: Long = Long.MAX_VALUE): LongArray {
+        require(min < max) {
+            "The ‘min’ boundary ($min) of the range should be less than the ‘max’ boundary ($max)"
+        }
+
+        val range = max - min
+        val array = LongArray(if (size < 0) aTinyInt() else size)
+        for (i in array.indices) {
+            array[i] = nextLongInRange(min, range)
+        }
+        return array
+    }
+
+    /**
+     * Creates a random [FloatArray], without boxing its elements.
+     * @param size the size of the array, or -1 for a random size
+     * @param min the minimum value (inclusive), default = -Float#MAX_VALUE
+     * @param max the maximum value (exclusive), default = Float#MAX_VALUE
+     * @return an array of floats between min and max
+     * @throws [IllegalArgumentException] if min > max
+     */
+    @JvmOverloads
+    fun aFloatArray(size: Int = -1, min: Float = -Float.MAX_VALUE, max: Float = Float.MAX_VALUE): FloatArray {
+        require(min <= max) {
+            "The ‘min’ boundary ($min) of the range should be less than (or equal to) " +
+                "the ‘max’ boundary ($max)"
+        }
+
+        val range = max - min
+        val array = FloatArray(if (size < 0) aTinyInt() else size)
+        for (i in array.indices) {
+            array[i] = nextFloatInRange(min, max, range)
+        }
+        return array
+    }
+
+    /**
+     * Creates a random [DoubleArray], without boxing its elements.
+     * @param size the size of the array, or -1 for a random size
+     * @param min the minimum value (inclusive), default = -Double#MAX_VALUE
+     * @param max the maximum value (exclusive), default = Double#MAX_VALUE
+     * @return an array of doubles between min and max
+     * @throws [IllegalArgumentException] if min > max
+     */
+    @JvmOverloads
+    fun aDoubleArray(size: Int = -1, min: Double = -Double.MAX_VALUE, max: Double = Double.MAX_VALUE): DoubleArray {
+        require(min <= max) {
+            "The ‘min’ boundary ($min) of the range should be less than (or equal to) " +
+                "the ‘max’ boundary ($max)"
+        }
+
+        val range = max - min
+        val array = DoubleArray(if (size < 0) aTinyInt() else size)
+        for (i in array.indices) {
+            array[i] = nextDoubleInRange(min, max, range)
+        }
+        return array
+    }
+
+    /**
+     * Creates a random [BooleanArray], without boxing its elements.
+     * @param size the size of the array, or -1 for a random size
+     * @param probability the probability each boolean will be true (default 0.5f)
+     * @return an array of booleans
+     */
+    @JvmOverloads
+    fun aBooleanArray(size: Int = -1, probability: Float = HALF_PROBABILITY): BooleanArray {
+        val array = BooleanArray(if (size < 0) aTinyInt() else size)
+        for (i in array.indices) {
+            array[i] = rng.nextFloat() < probability
+        }
+        return array
+    }
+
+    /**
+     * Creates a random [CharArray], without boxing its elements.
+     * @param size the size of the array, or -1 for a random size
+     * @param min the min char code to use (inclusive, default = 0x20 == space)
+     * @param max the max char code to use (exclusive, default = 0xD000)
+     * @return an array of chars within the given range
+     * @throws [IllegalArgumentException] if min >= max
+     */
+    @JvmOverloads
+    fun aCharArray(size: Int = -1, min: Char = MIN_PRINTABLE, max: Char = MAX_UTF8): CharArray {
+        require(min < max) {
+            "The ‘min’ boundary ($min) of the range should be less than the ‘max’ boundary ($max)"
+        }
+
+        val range = max.code.toLong() - min.code.toLong()
+        val array = CharArray(if (size < 0) aTinyInt() else size)
+        for (i in array.indices) {
+            var c: Char
+            do {
+                c = nextIntInRange(min.code, range).toChar()
+            } while (isIllegalChar(c))
+            array[i] = c
+        }
+        return array
+    }
+
+    /**
+     * Creates a random [ByteArray], with all 256 byte values equally likely.
+     * @param size the size of the array, or -1 for a random size
+     * @return an array of bytes
+     */
+    @JvmOverloads
+    fun aByteArray(size: Int = -1): ByteArray {
+        val array = ByteArray(if (size < 0) aTinyInt() else size)
+        var i = 0
+        while (i < array.size) {
+            // use all the bits of each random long
+            var bits = rng.nextLong()
+            val end = minOf(i + Long.SIZE_BYTES, array.size)
+            while (i < end) {
+                array[i++] = bits.toByte()
+                bits = bits ushr Byte.SIZE_BITS
+            }
+        }
+        return array
+    }
+
+    // endregion
+
+    // region Internal
+
+    /**
+     * Picks an int uniformly in [min, min + range), using Lemire's multiply-shift method: the
+     * high 32 bits of (random * range) give the result, and the rare draws from the biased low
+     * part are rejected, so no division is needed in the common case.
+     * @param range the size of the range, between 1 and 2^32 - 1
+     */
+    @Suppress("NOTHING_TO_INLINE")
+    private inline fun nextIntInRange(min: Int, range: Long): Int {
+        if ((range and (range - 1)) == 0L) {
+            // power of two: the high bits are already uniform
+            if (range == 1L) return min
+            val bitCount = java.lang.Long.numberOfTrailingZeros(range)
+            return min + (rng.nextInt() ushr (Int.SIZE_BITS - bitCount))
+        }
+
+        var product = (rng.nextInt().toLong() and UINT_MASK) * range
+        var low = product and UINT_MASK
+        if (low < range) {
+            val threshold = (UINT_RANGE - range) % range
+            while (low < threshold) {
+                product = (rng.nextInt().toLong() and UINT_MASK) * range
+                low = product and UINT_MASK
+            }
+        }
+        return min + (product ushr Int.SIZE_BITS).toInt()
+    }
+
+    /**
+     * Picks a long uniformly in [min, min + range), using Lemire's multiply-shift method on 128
+     * bits products (see [nextIntInRange]).
+     * @param range the size of the range, as an unsigned long (between 1 and 2^64 - 1)
+     */
+    @Suppress("NOTHING_TO_INLINE")
+    private inline fun nextLongInRange(min: Long, range: Long): Long {
+        if ((range and (range - 1)) == 0L) {
+            // power of two: the high bits are already uniform
+            if (range == 1L) return min
+            val bitCount = java.lang.Long.numberOfTrailingZeros(range)
+            return min + (rng.nextLong() ushr (Long.SIZE_BITS - bitCount))
+        }
+
+        var random = rng.nextLong()
+        var low = random * range
+        if (java.lang.Long.compareUnsigned(low, range) < 0) {
+            val threshold = java.lang.Long.remainderUnsigned(-range, range)
+            while (java.lang.Long.compareUnsigned(low, threshold) < 0) {
+                random = rng.nextLong()
+                low = random * range
+            }
+        }
+        return min + unsignedMultiplyHigh(random, range)
+    }
+
+    /**
+     * @return a double following a normal distribution (mean 0, standard deviation 1), truncated
+     * to ±[MAX_DEVIATION_RATIO] standard deviations
+     */
+    private fun nextTruncatedGaussian(): Double {
+        return TRUNCATED_GAUSSIAN.next(rng)
+    }
+
+    /**
+     * @return the high 64 bits of the unsigned 128 bits product of a and b
+     */
+    @Suppress("NOTHING_TO_INLINE")
+    private inline fun unsignedMultiplyHigh(a: Long, b: Long): Long {
+        return Math.multiplyHigh(a, b) + ((a shr (Long.SIZE_BITS - 1)) and b) + ((b shr (Long.SIZE_BITS - 1)) and a)
+    }
+
+    @Suppress("NOTHING_TO_INLINE")
+    private inline fun nextFloatInRange(min: Float, max: Float, range: Float): Float {
+        val trueRandom = if (range == Float.POSITIVE_INFINITY) {
+            (rng.nextFloat() - HALF_PROBABILITY) * Float.MAX_VALUE * 2
+        } else {
+            (rng.nextFloat() * range) + min
+        }
+        return trueRandom.coerceIn(min, max)
+    }
+
+    @Suppress("NOTHING_TO_INLINE")
+    private inline fun nextDoubleInRange(min: Double, max: Double, range: Double): Double {
+        val trueRandom = if (range == Double.POSITIVE_INFINITY) {
+            (rng.nextDouble() - HALF_PROBABILITY) * Double.MAX_VALUE * 2
+        } else {
+            (rng.nextDouble() * range) + min
+        }
+        return trueRandom.coerceIn(min, max)
+    }
+
+    /**
+     * Picks distinct indices with Floyd's algorithm, in O(count) time and memory (instead of going
+     * through all the possible indices).
+     * @param size the number of possible indices
+     * @param count the number of indices to pick (less than size)
+     * @return the picked indices, in increasing order
+     */
+    private fun pickDistinctIndices(size: Int, count: Int): IntArray {
+        val picked = HashSet<Int>(count * 2)
+        val indices = IntArray(count)
+        for (i in 0 until count) {
+            val j = size - count + i
+            val candidate = anInt(0, j + 1)
+            // j can't have been picked yet, as all the previous candidates were lower than j
+            val index = if (picked.add(candidate)) candidate else j.also { picked.add(it) }
+            indices[i] = index
+        }
+        indices.sort()
+        return indices
+    }
+
+    private fun <T, C : MutableCollection<T>> collectElementsAt(
+        elements: Collection<T>,
+        indices: IntArray,
+        result: C
+    ): C {
+        if (elements is List<T> && elements is RandomAccess) {
+            indices.forEach { result.add(elements[it]) }
+        } else {
+            val iterator = elements.iterator()
+            var position = 0
+            indices.forEach { index ->
+                while (position < index) {
+                    iterator.next()
+                    position++
+                }
+                result.add(iterator.next())
+                position++
+            }
+        }
+        return result
+    }
+
+    private fun isIllegalChar(c: Char): Boolean {
+        // compare unboxed chars, without boxing c to call ILLEGAL_UTF8_CHARS.contains()
+        for (illegal in ILLEGAL_UTF8_CHARS) {
+            if (illegal == c) return true
+        }
+        return false
+    }
+
+    // endregion
+
     // region Enum
 
     /**
@@ -1048,18 +1979,21 @@ open class Forge {
      * @param exclude a list of enum constants to exclude from the values
      * @return an element “randomly” picked in the enum values
      */
-    @Suppress("SpreadOperator")
+    @Suppress("UNCHECKED_CAST")
     @JvmOverloads
     fun <E : Enum<E>> aValueFrom(
         enumClass: Class<E>,
         exclude: Collection<E> = emptyList()
     ): E {
-        val chooseFrom = if (exclude.isNotEmpty()) {
-            enumClass.enumConstants.subtract(exclude)
+        // the constants are cached with the type's resolution, to avoid copying them on each call
+        val enumConstants = (getResolution(enumClass).enumConstants ?: enumClass.enumConstants) as Array<E>
+        return if (exclude.isEmpty()) {
+            enumConstants[anInt(0, enumConstants.size)]
         } else {
-            enumClass.enumConstants.toSet()
+            // an EnumSet makes each lookup constant, whatever the type of the excluded collection
+            val excluded = EnumSet.copyOf(exclude)
+            anElementFrom(enumConstants.filter { it !in excluded })
         }
-        return anElementFrom(chooseFrom)
     }
 
     // endregion
@@ -1140,8 +2074,15 @@ open class Forge {
         internal const val SMALL_THRESHOLD = 0x100
         internal const val BIG_THRESHOLD = 0x10000
         internal const val HUGE_THRESHOLD = 0x1000000
-        private const val MAX_INT = 0xFFFFFFFFL
         private const val DEFAULT_STDEV_INT = 100
+        private const val UINT_MASK = 0xFFFFFFFFL
+        private const val UINT_RANGE = 0x100000000L
+
+        // Collections
+        internal const val PARALLEL_CHUNK_SIZE = 0x400
+
+        // Regex
+        internal const val MAX_UNIFORM_LENGTH = 0x400
 
         // Gaussians
         @JvmField
@@ -1156,6 +2097,7 @@ open class Forge {
         @JvmField
         internal val MEAN_THRESHOLD_DOUBLE = sqrt(Double.MAX_VALUE)
         internal const val MAX_DEVIATION_RATIO = 3
+        private val TRUNCATED_GAUSSIAN = NormalDistribution.Truncated(MAX_DEVIATION_RATIO.toDouble())
 
         // Char
         internal const val MIN_PRINTABLE = 0x20.toChar()
@@ -1181,5 +2123,37 @@ open class Forge {
         fun seed(): Long {
             return (System.nanoTime() xor System.currentTimeMillis()) and SEED_MASK
         }
+
+        /**
+         * @return a snapshot of the statistics of the cache holding the regexes compiled by all forges
+         */
+        @JvmStatic
+        fun regexCacheStats(): CacheStats {
+            return RegexParser.shared.getStats()
+        }
+
+        /**
+         * Enumerates lazily all the Strings matching a regular expression, in shortlex order: the
+         * shortest Strings first, then in lexicographic order of code points. Each String is
+         * enumerated exactly once, and the sequence ends if the regex only matches a finite number
+         * of Strings.
+         *
+         * The enumeration can be resumed by passing the last String of a previous enumeration as
+         * [after]. Back references are not supported.
+         *
+         * @param regex a regular expression to drive the enumeration.
+         * @param after the String to start after (excluded), or null to start with the first match
+         * @param limit the maximum number of Strings to enumerate
+         * @return a lazy sequence of all the Strings matching the given regular expression
+         */
+        @JvmStatic
+        @JvmOverloads
+        fun enumerateMatching(
+            regex: String,
+            after: String? = null,
+            limit: Long = Long.MAX_VALUE
+        ): Sequence<String> {
+            return RegexParser.shared.getFactory(regex).enumerate(after, limit)
+        }
     }
 }
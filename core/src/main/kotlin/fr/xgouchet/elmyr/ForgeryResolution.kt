@@ -0,0 +1,38 @@
+package fr.xgouchet.elmyr
+
+/**
+ * The factories (or enum constants) able to forge a given type, resolved once from the factories
+ * registered in a [Forge], so that forging the same type again doesn't need to go through all the
+ * registered factories.
+ *
+ * @param exactMatch the factory registered for the exact type (if any)
+ * @param assignableMatches the factories registered for a subtype of the type (including the exact
+ * match), in registration order
+ * @param enumConstants the constants of the type, if it is an enum
+ */
+internal class ForgeryResolution(
+    val exactMatch: ForgeryFactory<*>?,
+    val assignableMatches: Array<ForgeryFactory<*>>,
+    val enumConstants: Array<*>?
+) {
+
+    companion object {
+
+        /**
+         * @param clazz the type to forge
+         * @param factories the factories registered in a [Forge]
+         * @return the resolution of the given type
+         */
+        fun resolve(clazz: Class<*>, factories: Map<Class<*>, ForgeryFactory<*>>): ForgeryResolution {
+            val assignableMatches = factories.entries
+                .filter { clazz.isAssignableFrom(it.key) }
+                .map { it.value }
+                .toTypedArray()
+            return ForgeryResolution(
+                exactMatch = factories[clazz],
+                assignableMatches = assignableMatches,
+                enumConstants = if (clazz.isEnum) clazz.enumConstants else null
+            )
+        }
+    }
+}
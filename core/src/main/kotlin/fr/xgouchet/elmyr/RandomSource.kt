@@ -0,0 +1,69 @@
+package fr.xgouchet.elmyr
+
+import fr.xgouchet.elmyr.random.Ziggurat
+
+/**
+ * A source of pseudo random numbers, used by a [Forge] to generate all its forgeries.
+ *
+ * Implementations don't need to be thread safe, as a [Forge] is not meant to be shared between
+ * threads. They must however be deterministic: two sources of the same type seeded with the same
+ * value must produce the same values, so that forgeries can be reproduced from the [Forge.seed].
+ *
+ * Only [setSeed], [nextLong] and [newInstance] are mandatory, the other methods derive their values
+ * from [nextLong] by default.
+ */
+interface RandomSource {
+
+    /**
+     * Resets the state of this source, based on the given seed.
+     * @param seed the seed
+     */
+    fun setSeed(seed: Long)
+
+    /**
+     * @return a long, with all 2^64 values equally likely
+     */
+    fun nextLong(): Long
+
+    /**
+     * @return a new source of the same type, used by the forges split from a [Forge] (the new
+     * source is seeded by the forge, its state doesn't matter)
+     */
+    fun newInstance(): RandomSource
+
+    /**
+     * @return an int, with all 2^32 values equally likely
+     */
+    fun nextInt(): Int {
+        return (nextLong() ushr Int.SIZE_BITS).toInt()
+    }
+
+    /**
+     * @return a float uniformly distributed between 0 (inclusive) and 1 (exclusive)
+     */
+    fun nextFloat(): Float {
+        return (nextInt() ushr (Int.SIZE_BITS - FLOAT_PRECISION)) * FLOAT_UNIT
+    }
+
+    /**
+     * @return a double uniformly distributed between 0 (inclusive) and 1 (exclusive)
+     */
+    fun nextDouble(): Double {
+        return (nextLong() ushr (Long.SIZE_BITS - DOUBLE_PRECISION)) * DOUBLE_UNIT
+    }
+
+    /**
+     * @return a double following a normal distribution, with a mean of 0 and a standard deviation
+     * of 1 (using the ziggurat method)
+     */
+    fun nextGaussian(): Double {
+        return Ziggurat.nextNormal(this)
+    }
+
+    companion object {
+        private const val FLOAT_PRECISION = 24
+        private const val DOUBLE_PRECISION = 53
+        private const val FLOAT_UNIT = 1.0f / (1 shl FLOAT_PRECISION)
+        private const val DOUBLE_UNIT = 1.0 / (1L shl DOUBLE_PRECISION)
+    }
+}
@@ -0,0 +1,39 @@
+package fr.xgouchet.elmyr
+
+/**
+ * A [ForgeryFactory] picking elements uniformly from a snapshot of a collection.
+ *
+ * Sets and maps can't be accessed by index, so picking an element directly from them needs to walk
+ * through them (see [Forge.anElementFrom]). The sampler copies the elements once, and each pick then
+ * takes a constant time. For a given seed, it picks the same elements as [Forge.anElementFrom]
+ * would pick from the original collection.
+ *
+ * Changes made to the collection after the sampler is created are not visible to the sampler.
+ *
+ * @param T the type of the elements
+ * @param elements the elements to pick from
+ * @throws [IllegalArgumentException] if there is no element
+ */
+class SnapshotSampler<out T : Any>(
+    elements: Collection<T>
+) : ForgeryFactory<T> {
+
+    private val elements: List<T> = ArrayList(elements)
+
+    init {
+        require(this.elements.isNotEmpty()) { "The sampler needs at least one element" }
+    }
+
+    /** The number of elements in the snapshot. */
+    val size: Int
+        get() = elements.size
+
+    // region ForgeryFactory
+
+    /** @inheritdoc */
+    override fun getForgery(forge: Forge): T {
+        return forge.anElementFrom(elements)
+    }
+
+    // endregion
+}
@@ -0,0 +1,95 @@
+package fr.xgouchet.elmyr
+
+/**
+ * A [ForgeryFactory] picking elements with a probability proportional to their weight.
+ *
+ * The sampler is built once (in linear time) with Vose's alias method, and each pick then takes a
+ * constant time and a single random draw, whatever the number of elements. Building a sampler is
+ * worth it when picking many elements from the same weighted catalog.
+ *
+ * @param T the type of the elements
+ * @param weights the weight of each element (elements with a null weight are never picked)
+ * @throws [IllegalArgumentException] if there is no element, if a weight is negative or not finite,
+ * or if all the weights are null
+ */
+class WeightedSampler<out T : Any>(
+    weights: Map<out T, Number>
+) : ForgeryFactory<T> {
+
+    private val elements: List<T> = weights.keys.toList()
+    private val probabilities = DoubleArray(elements.size)
+    private val aliases = IntArray(elements.size)
+
+    init {
+        require(elements.isNotEmpty()) { "The sampler needs at least one element" }
+
+        val values = DoubleArray(elements.size)
+        weights.values.forEachIndexed { i, weight ->
+            val value = weight.toDouble()
+            require(value >= 0 && value.isFinite()) {
+                "The weight of ${elements[i]} ($weight) must be a positive (or null) finite value"
+            }
+            values[i] = value
+        }
+        val total = values.sum()
+        require(total > 0 && total.isFinite()) { "The sum of the weights ($total) must be a strictly positive value" }
+
+        buildAliasTable(values, total)
+    }
+
+    // region ForgeryFactory
+
+    /** @inheritdoc */
+    override fun getForgery(forge: Forge): T {
+        // the integer part picks a column, the fractional part picks the element or its alias
+        val u = forge.aDouble(0.0, elements.size.toDouble())
+        val column = u.toInt().coerceAtMost(elements.size - 1)
+        val index = if (u - column < probabilities[column]) column else aliases[column]
+        return elements[index]
+    }
+
+    // endregion
+
+    // region Internal
+
+    /**
+     * Splits the probabilities in columns of equal height, each column holding at most two elements:
+     * the column's own element, and an alias filling the rest of the column.
+     */
+    private fun buildAliasTable(values: DoubleArray, total: Double) {
+        val count = values.size
+        val scaled = DoubleArray(count) { values[it] * count / total }
+
+        // both work lists are used as stacks, and never hold more than count indices together
+        val small = IntArray(count)
+        val large = IntArray(count)
+        var smallSize = 0
+        var largeSize = 0
+        for (i in 0 until count) {
+            if (scaled[i] < 1.0) small[smallSize++] = i else large[largeSize++] = i
+        }
+
+        while (smallSize > 0 && largeSize > 0) {
+            val less = small[--smallSize]
+            val more = large[--largeSize]
+            probabilities[less] = scaled[less]
+            aliases[less] = more
+            scaled[more] = (scaled[more] + scaled[less]) - 1.0
+            if (scaled[more] < 1.0) small[smallSize++] = more else large[largeSize++] = more
+        }
+
+        // the remaining columns are full (up to rounding errors)
+        while (largeSize > 0) {
+            val index = large[--largeSize]
+            probabilities[index] = 1.0
+            aliases[index] = index
+        }
+        while (smallSize > 0) {
+            val index = small[--smallSize]
+            probabilities[index] = 1.0
+            aliases[index] = index
+        }
+    }
+
+    // endregion
+}
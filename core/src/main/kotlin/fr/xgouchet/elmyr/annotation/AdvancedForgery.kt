@@ -6,6 +6,10 @@ package fr.xgouchet.elmyr.annotation
  * Advanced allow you to provide a list of ways the forgery can be created.
  * Only one of each parameter can be provided.
  *
+ * By default, all the alternatives are equally likely. The [weights] can be used to pick some
+ * alternatives more often than the others: e.g. with `int = [IntForgery(0, 10), IntForgery(10, 100)]`
+ * and `weights = [9.0, 1.0]`, the int will be in the first range 90% of the time.
+ *
  * @property string describes all the way a String can be forged
  * @property int describes all the way a Int can be forged
  * @property long describes all the way a Long can be forged
@@ -13,6 +17,8 @@ package fr.xgouchet.elmyr.annotation
  * @property double describes all the way a Double can be forged
  * @property map describes all the way a Map can be forged
  * @property pair describes all the way a Pair can be forged
+ * @property weights the relative weight of each alternative (must be empty, or have as many values
+ * as the alternatives provided)
  */
 @Target(
     AnnotationTarget.VALUE_PARAMETER,
@@ -29,5 +35,6 @@ annotation class AdvancedForgery(
     val float: Array<FloatForgery> = [],
     val double: Array<DoubleForgery> = [],
     val map: Array<MapForgery> = [],
-    val pair: Array<PairForgery> = []
+    val pair: Array<PairForgery> = [],
+    val weights: DoubleArray = []
 )
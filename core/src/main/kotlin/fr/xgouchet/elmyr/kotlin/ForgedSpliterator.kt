@@ -0,0 +1,59 @@
+package fr.xgouchet.elmyr.kotlin
+
+import fr.xgouchet.elmyr.Forge
+import java.util.Spliterator
+import java.util.function.Consumer
+
+/**
+ * A [Spliterator] generating the elements of a forged collection by chunks: all the elements of a
+ * chunk are generated in order with the chunk's own forge, so that the generated elements don't
+ * depend on how the spliterator is split (nor on the number of threads consuming it).
+ *
+ * Splitting always happens on chunk boundaries.
+ */
+internal class ForgedSpliterator<T>(
+    private var index: Int,
+    private val fence: Int,
+    private val chunkSize: Int,
+    private val chunkForge: (chunkIndex: Int) -> Forge,
+    private val forging: Forge.() -> T
+) : Spliterator<T> {
+
+    private var currentChunkIndex = -1
+    private var currentForge: Forge? = null
+
+    // region Spliterator
+
+    override fun tryAdvance(action: Consumer<in T>): Boolean {
+        if (index >= fence) return false
+
+        val chunkIndex = index / chunkSize
+        val forge = currentForge?.takeIf { chunkIndex == currentChunkIndex } ?: chunkForge(chunkIndex).also {
+            currentChunkIndex = chunkIndex
+            currentForge = it
+        }
+        index++
+        action.accept(forge.forging())
+        return true
+    }
+
+    override fun trySplit(): Spliterator<T>? {
+        // only split unstarted chunks
+        val firstChunk = (index + chunkSize - 1) / chunkSize
+        val lastChunk = (fence - 1) / chunkSize
+        if (index % chunkSize != 0 || lastChunk - firstChunk < 1) return null
+
+        val middle = ((firstChunk + lastChunk + 1) / 2) * chunkSize
+        val prefix = ForgedSpliterator(index, middle, chunkSize, chunkForge, forging)
+        index = middle
+        return prefix
+    }
+
+    override fun estimateSize(): Long = (fence - index).toLong()
+
+    override fun characteristics(): Int {
+        return Spliterator.ORDERED or Spliterator.SIZED or Spliterator.SUBSIZED or Spliterator.IMMUTABLE
+    }
+
+    // endregion
+}
@@ -0,0 +1,38 @@
+package fr.xgouchet.elmyr.random
+
+import fr.xgouchet.elmyr.RandomSource
+import java.util.Random
+
+/**
+ * A [RandomSource] backed by a [java.util.Random] (a 48 bits linear congruential generator).
+ *
+ * This is the default source of a [fr.xgouchet.elmyr.Forge], which keeps the raw random numbers
+ * drawn from a given seed identical to previous versions of Elmyr (the values the forge derives from
+ * them, like bounded ints, can still differ). Note that [java.util.Random] is thread safe, which
+ * makes each draw more expensive than with the other sources.
+ *
+ * Gaussian values are drawn with the ziggurat method, like with the other sources (and unlike
+ * [java.util.Random.nextGaussian]).
+ */
+class JavaUtilRandomSource : RandomSource {
+
+    private val random = Random()
+
+    // region RandomSource
+
+    override fun setSeed(seed: Long) {
+        random.setSeed(seed)
+    }
+
+    override fun nextLong(): Long = random.nextLong()
+
+    override fun nextInt(): Int = random.nextInt()
+
+    override fun nextFloat(): Float = random.nextFloat()
+
+    override fun nextDouble(): Double = random.nextDouble()
+
+    override fun newInstance(): RandomSource = JavaUtilRandomSource()
+
+    // endregion
+}
@@ -0,0 +1,124 @@
+package fr.xgouchet.elmyr.random
+
+import fr.xgouchet.elmyr.RandomSource
+import kotlin.math.exp
+import kotlin.math.ln
+import kotlin.math.sqrt
+
+/**
+ * The standard normal distribution's cumulative distribution function (and its inverse), used to
+ * sample a truncated normal distribution by inversion: a uniform value is picked between the CDF of
+ * both bounds, and mapped back through the inverse CDF, without any rejection.
+ */
+internal object NormalDistribution {
+
+    /**
+     * A standard normal distribution truncated to [-bound, bound].
+     * @param bound the (positive) bound of the distribution
+     */
+    class Truncated(private val bound: Double) {
+
+        private val lower = cdf(-bound)
+        private val range = cdf(bound) - lower
+
+        /**
+         * @param rng the source of random numbers
+         * @return a double following the truncated distribution
+         */
+        fun next(rng: RandomSource): Double {
+            // the approximation's relative error (below 1.15e-9) is negligible for a random value,
+            // and avoids the costly refinement
+            val p = lower + (rng.nextDouble() * range)
+            return approximateInverseCdf(p).coerceIn(-bound, bound)
+        }
+    }
+
+    private const val HALF_LN_TWO_PI = 0.91893853320467274178
+    private val SQRT_TWO_PI = sqrt(2 * Math.PI)
+
+    // Acklam's rational approximation of the inverse CDF
+    private val A = doubleArrayOf(
+        -3.969683028665376e+01, 2.209460984245205e+02, -2.759285104469687e+02,
+        1.383577518672690e+02, -3.066479806614716e+01, 2.506628277459239e+00
+    )
+    private val B = doubleArrayOf(
+        -5.447609879822406e+01, 1.615858368580409e+02, -1.556989798598866e+02,
+        6.680131188771972e+01, -1.328068155288572e+01
+    )
+    private val C = doubleArrayOf(
+        -7.784894002430293e-03, -3.223964580411365e-01, -2.400758277161838e+00,
+        -2.549732539343734e+00, 4.374664141464968e+00, 2.938163982698783e+00
+    )
+    private val D = doubleArrayOf(
+        7.784695709041462e-03, 3.224671290700398e-01, 2.445134137142996e+00, 3.754408661907416e+00
+    )
+    private const val LOW_REGION = 0.02425
+    private const val HIGH_REGION = 1 - LOW_REGION
+
+    // region NormalDistribution
+
+    /**
+     * @return the probability that a standard normal value is less than x (using Marsaglia's
+     * Taylor series, accurate to about 15 digits for |x| < 8)
+     */
+    fun cdf(x: Double): Double {
+        val q = x * x
+        var sum = x
+        var previous = 0.0
+        var term = x
+        var i = 1.0
+        while (sum != previous) {
+            previous = sum
+            i += 2
+            term *= q / i
+            sum += term
+        }
+        return 0.5 + (sum * exp((-q / 2) - HALF_LN_TWO_PI))
+    }
+
+    /**
+     * @return the value x such that [cdf] (x) = p (using Acklam's approximation, refined by one step
+     * of Halley's method)
+     */
+    fun inverseCdf(p: Double): Double {
+        require(p > 0 && p < 1) { "The probability ($p) must be strictly between 0 and 1" }
+
+        val x = approximateInverseCdf(p)
+        val e = cdf(x) - p
+        val u = e * SQRT_TWO_PI * exp(x * x / 2)
+        return x - (u / (1 + (x * u / 2)))
+    }
+
+    // endregion
+
+    // region Internal
+
+    /**
+     * @return the value x such that [cdf] (x) ≈ p, with Acklam's approximation
+     */
+    private fun approximateInverseCdf(p: Double): Double {
+        return when {
+            p < LOW_REGION -> {
+                val q = sqrt(-2 * ln(p))
+                tailApproximation(q)
+            }
+            p > HIGH_REGION -> {
+                val q = sqrt(-2 * ln(1 - p))
+                -tailApproximation(q)
+            }
+            else -> {
+                val q = p - 0.5
+                val r = q * q
+                (((((A[0] * r + A[1]) * r + A[2]) * r + A[3]) * r + A[4]) * r + A[5]) * q /
+                    (((((B[0] * r + B[1]) * r + B[2]) * r + B[3]) * r + B[4]) * r + 1)
+            }
+        }
+    }
+
+    private fun tailApproximation(q: Double): Double {
+        return (((((C[0] * q + C[1]) * q + C[2]) * q + C[3]) * q + C[4]) * q + C[5]) /
+            ((((D[0] * q + D[1]) * q + D[2]) * q + D[3]) * q + 1)
+    }
+
+    // endregion
+}
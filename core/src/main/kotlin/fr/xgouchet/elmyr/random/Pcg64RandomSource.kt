@@ -0,0 +1,74 @@
+package fr.xgouchet.elmyr.random
+
+import fr.xgouchet.elmyr.RandomSource
+
+/**
+ * A [RandomSource] implementing PCG64 (by Melissa O'Neill, in its XSL RR 128/64 variant): a 128
+ * bits linear congruential generator, whose output is permuted by a xor-shift and a random rotation.
+ *
+ * It has a period of 2^128. Its state is initialized from the seed with [SplitMix64RandomSource].
+ */
+class Pcg64RandomSource : RandomSource {
+
+    private var stateHigh = 0L
+    private var stateLow = 0L
+
+    // region RandomSource
+
+    override fun setSeed(seed: Long) {
+        stateHigh = 0L
+        stateLow = 0L
+        step()
+        addToState(SplitMix64RandomSource.derive(seed, 0L), SplitMix64RandomSource.derive(seed, 1L))
+        step()
+    }
+
+    override fun nextLong(): Long {
+        val high = stateHigh
+        val low = stateLow
+        step()
+        val rotation = (high ushr ROTATION_SHIFT).toInt()
+        return (high xor low).rotateRight(rotation)
+    }
+
+    override fun newInstance(): RandomSource = Pcg64RandomSource()
+
+    // endregion
+
+    // region Internal
+
+    /**
+     * Advances the state: state = (state * MULTIPLIER) + INCREMENT (modulo 2^128).
+     */
+    private fun step() {
+        val low = stateLow * MULTIPLIER_LOW
+        val high = unsignedMultiplyHigh(stateLow, MULTIPLIER_LOW) +
+            (stateLow * MULTIPLIER_HIGH) +
+            (stateHigh * MULTIPLIER_LOW)
+        stateHigh = high
+        stateLow = low
+        addToState(INCREMENT_HIGH, INCREMENT_LOW)
+    }
+
+    private fun addToState(high: Long, low: Long) {
+        val newLow = stateLow + low
+        val carry = if (java.lang.Long.compareUnsigned(newLow, stateLow) < 0) 1L else 0L
+        stateLow = newLow
+        stateHigh += high + carry
+    }
+
+    private fun unsignedMultiplyHigh(a: Long, b: Long): Long {
+        return Math.multiplyHigh(a, b) + ((a shr SIGN_SHIFT) and b) + ((b shr SIGN_SHIFT) and a)
+    }
+
+    // endregion
+
+    companion object {
+        private const val MULTIPLIER_HIGH = 2549297995355413924L
+        private const val MULTIPLIER_LOW = 4865540595714422341L
+        private const val INCREMENT_HIGH = 6364136223846793005L
+        private const val INCREMENT_LOW = 1442695040888963407L
+        private const val ROTATION_SHIFT = 58
+        private const val SIGN_SHIFT = 63
+    }
+}
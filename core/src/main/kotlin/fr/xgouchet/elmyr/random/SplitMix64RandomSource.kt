@@ -0,0 +1,59 @@
+package fr.xgouchet.elmyr.random
+
+import fr.xgouchet.elmyr.RandomSource
+
+/**
+ * A [RandomSource] implementing SplitMix64 (by Guy Steele, Doug Lea and Christine Flood): a 64 bits
+ * counter, scrambled by a mixing function.
+ *
+ * It is one of the fastest generators, with a period of 2^64, and is also used to derive the
+ * initial state of the other sources from a single seed.
+ */
+class SplitMix64RandomSource : RandomSource {
+
+    private var state = 0L
+
+    // region RandomSource
+
+    override fun setSeed(seed: Long) {
+        state = seed
+    }
+
+    override fun nextLong(): Long {
+        state += GOLDEN_GAMMA
+        return mix(state)
+    }
+
+    override fun newInstance(): RandomSource = SplitMix64RandomSource()
+
+    // endregion
+
+    companion object {
+
+        private const val GOLDEN_GAMMA = -0x61c8864680b583ebL
+        private const val MIX_MULTIPLIER_1 = -0x40a7b892e31b1a47L
+        private const val MIX_MULTIPLIER_2 = -0x6b2fb644ecceee15L
+        private const val MIX_SHIFT_1 = 30
+        private const val MIX_SHIFT_2 = 27
+        private const val MIX_SHIFT_3 = 31
+
+        /**
+         * The SplitMix64 mixing function (a bijection on longs, with a good avalanche effect).
+         */
+        internal fun mix(value: Long): Long {
+            var z = value
+            z = (z xor (z ushr MIX_SHIFT_1)) * MIX_MULTIPLIER_1
+            z = (z xor (z ushr MIX_SHIFT_2)) * MIX_MULTIPLIER_2
+            return z xor (z ushr MIX_SHIFT_3)
+        }
+
+        /**
+         * @param seed a seed
+         * @param index the index of the value to derive
+         * @return the index-th value of the SplitMix64 sequence starting from the given seed
+         */
+        internal fun derive(seed: Long, index: Long): Long {
+            return mix(seed + ((index + 1) * GOLDEN_GAMMA))
+        }
+    }
+}
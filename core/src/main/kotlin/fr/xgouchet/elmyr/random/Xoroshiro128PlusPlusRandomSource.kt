@@ -0,0 +1,46 @@
+package fr.xgouchet.elmyr.random
+
+import fr.xgouchet.elmyr.RandomSource
+
+/**
+ * A [RandomSource] implementing xoroshiro128++ (by David Blackman and Sebastiano Vigna): a 128 bits
+ * xor/shift/rotate linear generator, with a period of 2^128 - 1.
+ *
+ * It is fast and passes the usual statistical test suites. Its state is initialized from the seed
+ * with [SplitMix64RandomSource], as recommended by its authors.
+ */
+class Xoroshiro128PlusPlusRandomSource : RandomSource {
+
+    private var state0 = 0L
+    private var state1 = 0L
+
+    // region RandomSource
+
+    override fun setSeed(seed: Long) {
+        state0 = SplitMix64RandomSource.derive(seed, 0L)
+        state1 = SplitMix64RandomSource.derive(seed, 1L)
+    }
+
+    override fun nextLong(): Long {
+        val s0 = state0
+        var s1 = state1
+        val result = (s0 + s1).rotateLeft(ROTATION_RESULT) + s0
+
+        s1 = s1 xor s0
+        state0 = s0.rotateLeft(ROTATION_A) xor s1 xor (s1 shl SHIFT_B)
+        state1 = s1.rotateLeft(ROTATION_C)
+
+        return result
+    }
+
+    override fun newInstance(): RandomSource = Xoroshiro128PlusPlusRandomSource()
+
+    // endregion
+
+    companion object {
+        private const val ROTATION_RESULT = 17
+        private const val ROTATION_A = 49
+        private const val SHIFT_B = 21
+        private const val ROTATION_C = 28
+    }
+}
@@ -0,0 +1,150 @@
+package fr.xgouchet.elmyr.random
+
+import fr.xgouchet.elmyr.RandomSource
+import kotlin.math.abs
+import kotlin.math.exp
+import kotlin.math.ln
+import kotlin.math.sqrt
+
+/**
+ * Samples the standard normal and exponential distributions with Marsaglia and Tsang's ziggurat
+ * method: the density is covered by layers of equal area, and most draws (about 99%) fall inside a
+ * layer's rectangle, needing a single random long, one comparison and one multiplication (no
+ * logarithm nor square root).
+ *
+ * The tables are computed once, when this object is first used.
+ */
+internal object Ziggurat {
+
+    // region Normal tables
+
+    private const val NORMAL_LAYERS = 128
+    private const val NORMAL_TAIL = 3.442619855899
+    private const val NORMAL_LAYER_AREA = 9.91256303526217e-3
+    private const val NORMAL_SCALE = 2147483648.0 // 2^31
+
+    // kn[i] = the threshold under which |hz| is inside the rectangle of layer i
+    private val kn = LongArray(NORMAL_LAYERS)
+    private val wn = DoubleArray(NORMAL_LAYERS)
+    private val fn = DoubleArray(NORMAL_LAYERS)
+
+    // endregion
+
+    // region Exponential tables
+
+    private const val EXPONENTIAL_LAYERS = 256
+    private const val EXPONENTIAL_TAIL = 7.697117470131487
+    private const val EXPONENTIAL_LAYER_AREA = 3.949659822581572e-3
+    private const val EXPONENTIAL_SCALE = 4294967296.0 // 2^32
+
+    private val ke = LongArray(EXPONENTIAL_LAYERS)
+    private val we = DoubleArray(EXPONENTIAL_LAYERS)
+    private val fe = DoubleArray(EXPONENTIAL_LAYERS)
+
+    // endregion
+
+    private const val UINT_MASK = 0xFFFFFFFFL
+
+    init {
+        initNormalTables()
+        initExponentialTables()
+    }
+
+    // region Ziggurat
+
+    /**
+     * @param rng the source of random numbers
+     * @return a double following a normal distribution, with a mean of 0 and a standard deviation
+     * of 1
+     */
+    fun nextNormal(rng: RandomSource): Double {
+        while (true) {
+            // the high 32 bits give the (signed) abscissa, the low bits the layer
+            val bits = rng.nextLong()
+            val hz = (bits shr Int.SIZE_BITS).toInt()
+            val iz = (bits and (NORMAL_LAYERS - 1).toLong()).toInt()
+            val x = hz * wn[iz]
+            if (abs(hz.toLong()) < kn[iz]) return x
+
+            if (iz == 0) {
+                return if (hz > 0) normalTail(rng) else -normalTail(rng)
+            }
+            // the wedge between the rectangle and the density
+            if (fn[iz] + (rng.nextDouble() * (fn[iz - 1] - fn[iz])) < exp(-x * x / 2)) return x
+        }
+    }
+
+    /**
+     * @param rng the source of random numbers
+     * @return a double following an exponential distribution, with a mean of 1
+     */
+    fun nextExponential(rng: RandomSource): Double {
+        var offset = 0.0
+        while (true) {
+            val bits = rng.nextLong()
+            val jz = (bits ushr Int.SIZE_BITS) and UINT_MASK
+            val iz = (bits and (EXPONENTIAL_LAYERS - 1).toLong()).toInt()
+            val x = jz * we[iz]
+            if (jz < ke[iz]) return offset + x
+
+            if (iz == 0) {
+                // the tail is itself exponential, shifted by the tail's start
+                offset += EXPONENTIAL_TAIL
+            } else if (fe[iz] + (rng.nextDouble() * (fe[iz - 1] - fe[iz])) < exp(-x)) {
+                return offset + x
+            }
+        }
+    }
+
+    // endregion
+
+    // region Internal
+
+    private fun normalTail(rng: RandomSource): Double {
+        while (true) {
+            val x = -ln(1.0 - rng.nextDouble()) / NORMAL_TAIL
+            val y = -ln(1.0 - rng.nextDouble())
+            if (y + y >= x * x) return NORMAL_TAIL + x
+        }
+    }
+
+    private fun initNormalTables() {
+        var dn = NORMAL_TAIL
+        var tn = dn
+        val q = NORMAL_LAYER_AREA / exp(-dn * dn / 2)
+        kn[0] = ((dn / q) * NORMAL_SCALE).toLong()
+        kn[1] = 0
+        wn[0] = q / NORMAL_SCALE
+        wn[NORMAL_LAYERS - 1] = dn / NORMAL_SCALE
+        fn[0] = 1.0
+        fn[NORMAL_LAYERS - 1] = exp(-dn * dn / 2)
+        for (i in (NORMAL_LAYERS - 2) downTo 1) {
+            dn = sqrt(-2 * ln((NORMAL_LAYER_AREA / dn) + exp(-dn * dn / 2)))
+            kn[i + 1] = ((dn / tn) * NORMAL_SCALE).toLong()
+            tn = dn
+            fn[i] = exp(-dn * dn / 2)
+            wn[i] = dn / NORMAL_SCALE
+        }
+    }
+
+    private fun initExponentialTables() {
+        var de = EXPONENTIAL_TAIL
+        var te = de
+        val q = EXPONENTIAL_LAYER_AREA / exp(-de)
+        ke[0] = ((de / q) * EXPONENTIAL_SCALE).toLong()
+        ke[1] = 0
+        we[0] = q / EXPONENTIAL_SCALE
+        we[EXPONENTIAL_LAYERS - 1] = de / EXPONENTIAL_SCALE
+        fe[0] = 1.0
+        fe[EXPONENTIAL_LAYERS - 1] = exp(-de)
+        for (i in (EXPONENTIAL_LAYERS - 2) downTo 1) {
+            de = -ln((EXPONENTIAL_LAYER_AREA / de) + exp(-de))
+            ke[i + 1] = ((de / te) * EXPONENTIAL_SCALE).toLong()
+            te = de
+            fe[i] = exp(-de)
+            we[i] = de / EXPONENTIAL_SCALE
+        }
+    }
+
+    // endregion
+}
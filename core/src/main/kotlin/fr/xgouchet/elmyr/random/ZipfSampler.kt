@@ -0,0 +1,99 @@
+package fr.xgouchet.elmyr.random
+
+import fr.xgouchet.elmyr.RandomSource
+import kotlin.math.abs
+import kotlin.math.exp
+import kotlin.math.expm1
+import kotlin.math.ln
+import kotlin.math.ln1p
+
+/**
+ * Samples a Zipf distribution (the rank k in 1..n is picked with a probability proportional to
+ * 1 / k^exponent) with Hörmann and Derflinger's rejection-inversion method: a continuous hat
+ * function is inverted, and the few values falling outside the discrete distribution are rejected.
+ * This needs a constant time (and memory) whatever n, where a CDF table would need O(n).
+ *
+ * @param n the number of ranks
+ * @param exponent the exponent of the distribution (0 for a uniform distribution)
+ */
+internal class ZipfSampler(
+    internal val n: Int,
+    internal val exponent: Double
+) {
+
+    private val hIntegralX1: Double
+    private val hIntegralN: Double
+    private val s: Double
+
+    init {
+        require(n > 0) { "The number of elements ($n) must be strictly positive" }
+        require(exponent >= 0) { "The exponent ($exponent) must be a positive (or null) value" }
+        hIntegralX1 = hIntegral(1.5) - 1
+        hIntegralN = hIntegral(n + 0.5)
+        s = 2 - hIntegralInverse(hIntegral(2.5) - h(2.0))
+    }
+
+    // region ZipfSampler
+
+    /**
+     * @param rng the source of random numbers
+     * @return a rank between 1 and n (inclusive)
+     */
+    fun next(rng: RandomSource): Int {
+        while (true) {
+            val u = hIntegralN + (rng.nextDouble() * (hIntegralX1 - hIntegralN))
+            val x = hIntegralInverse(u)
+            val k = (x + 0.5).toLong().coerceIn(1L, n.toLong())
+            if ((k - x <= s) || (u >= hIntegral(k + 0.5) - h(k.toDouble()))) {
+                return k.toInt()
+            }
+        }
+    }
+
+    // endregion
+
+    // region Internal
+
+    /** The hat function, h(x) = 1 / x^exponent. */
+    private fun h(x: Double): Double {
+        return exp(-exponent * ln(x))
+    }
+
+    /** The integral of h, from 1 to x. */
+    private fun hIntegral(x: Double): Double {
+        val logX = ln(x)
+        return helper2((1 - exponent) * logX) * logX
+    }
+
+    private fun hIntegralInverse(x: Double): Double {
+        val t = (x * (1 - exponent)).coerceAtLeast(-1.0)
+        return exp(helper1(t) * x)
+    }
+
+    /** ln(1 + x) / x, accurate near 0. */
+    private fun helper1(x: Double): Double {
+        return if (abs(x) > TAYLOR_THRESHOLD) {
+            ln1p(x) / x
+        } else {
+            1 - (x * (HALF - (x * (THIRD - (QUARTER * x)))))
+        }
+    }
+
+    /** (e^x - 1) / x, accurate near 0. */
+    private fun helper2(x: Double): Double {
+        return if (abs(x) > TAYLOR_THRESHOLD) {
+            expm1(x) / x
+        } else {
+            1 + (x * HALF * (1 + (x * THIRD * (1 + (QUARTER * x)))))
+        }
+    }
+
+    // endregion
+
+    companion object {
+        private const val TAYLOR_THRESHOLD = 1e-8
+        private const val HALF = 0.5
+        private const val THIRD = 1.0 / 3
+        private const val QUARTER = 0.25
+    }
+}
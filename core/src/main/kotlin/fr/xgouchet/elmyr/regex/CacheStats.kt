@@ -0,0 +1,30 @@
+package fr.xgouchet.elmyr.regex
+
+/**
+ * A snapshot of the statistics of the cache holding the compiled regular expressions.
+ *
+ * @property capacity the maximum number of entries held in the cache
+ * @property size the number of entries in the cache when the snapshot was taken
+ * @property hitCount the number of lookups which found an existing entry
+ * @property missCount the number of lookups which didn't find an existing entry
+ * @property createCount the number of entries created (lower than the miss count when concurrent lookups collide)
+ * @property evictionCount the number of entries evicted to keep the cache within its capacity
+ */
+data class CacheStats(
+    val capacity: Int,
+    val size: Int,
+    val hitCount: Long,
+    val missCount: Long,
+    val createCount: Long,
+    val evictionCount: Long
+) {
+
+    /**
+     * The ratio of lookups which found an existing entry (or 1.0 if no lookup happened yet).
+     */
+    val hitRate: Double
+        get() {
+            val requestCount = hitCount + missCount
+            return if (requestCount == 0L) 1.0 else hitCount.toDouble() / requestCount
+        }
+}
@@ -1,65 +1,115 @@
 package fr.xgouchet.elmyr.regex
 
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.FutureTask
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * A concurrent Least Recently Used cache.
+ *
+ * Lookups of existing entries are lock free: they only stamp the entry with the current value of
+ * a shared access clock. Values are loaded at most once per key, concurrent lookups of a missing key
+ * wait for the first one to load it. When the cache grows above its capacity, the entry with the
+ * oldest access stamp is evicted.
+ */
 internal class LRUCache<K : Any, V : Any>(
     val capacity: Int,
     val factory: (K) -> V
 ) {
 
-    private val map: LinkedHashMap<K, V>
+    private val map: ConcurrentHashMap<K, Entry<V>>
+    private val accessClock = AtomicLong()
+    private val evictionLock = Any()
 
-    private var hitCount = 0
-    private var missCount = 0
-    private var createCount = 0
-    private var evictionCount = 0
+    private val hitCount = AtomicLong()
+    private val missCount = AtomicLong()
+    private val createCount = AtomicLong()
+    private val evictionCount = AtomicLong()
 
     init {
         require(capacity > 0) { "Cache capacity must be greater than 0" }
-        map = LinkedHashMap(capacity)
+        map = ConcurrentHashMap(capacity)
     }
 
     fun get(key: K): V {
+        val existingEntry = map[key]
+        if (existingEntry != null) {
+            hitCount.incrementAndGet()
+            existingEntry.accessStamp = accessClock.incrementAndGet()
+            return awaitValue(key, existingEntry)
+        }
+        missCount.incrementAndGet()
 
-        val existingValue: V?
-
-        synchronized(map) {
-            existingValue = map[key]
-            if (existingValue != null) {
-                hitCount++
-                return existingValue
-            }
-            missCount++
+        val createdEntry = Entry(FutureTask { factory(key) })
+        createdEntry.accessStamp = accessClock.incrementAndGet()
+        val conflictingEntry = map.putIfAbsent(key, createdEntry)
+        if (conflictingEntry != null) {
+            // Another thread is already loading this key, wait for its value
+            conflictingEntry.accessStamp = accessClock.incrementAndGet()
+            return awaitValue(key, conflictingEntry)
         }
 
-        // Call factory outside the synchronized block as it may block the thread for too long
-        val createdValue = factory(key)
-        createCount++
-
-        val returnValue: V
-        synchronized(map) {
-            val conflictingValue = map.put(key, createdValue)
-            returnValue = if (conflictingValue != null) {
-                // There was a conflict so undo that last put
-                map[key] = conflictingValue
-                conflictingValue
-            } else {
-                createdValue
-            }
+        // Call factory outside of any lock as it may block the thread for too long
+        createdEntry.task.run()
+        createCount.incrementAndGet()
+
+        if (map.size > capacity) {
+            trimToSize(capacity)
         }
 
-        trimToSize(capacity)
+        return awaitValue(key, createdEntry)
+    }
 
-        return returnValue
+    fun stats(): CacheStats {
+        return CacheStats(
+            capacity = capacity,
+            size = map.size,
+            hitCount = hitCount.get(),
+            missCount = missCount.get(),
+            createCount = createCount.get(),
+            evictionCount = evictionCount.get()
+        )
     }
 
-    private fun trimToSize(size: Int) {
-        synchronized(map) {
-            if (map.isEmpty()) return
+    // region Internal
 
+    private fun awaitValue(key: K, entry: Entry<V>): V {
+        try {
+            return entry.task.get()
+        } catch (e: ExecutionException) {
+            // Don't keep failures in the cache, and rethrow the factory's original exception
+            map.remove(key, entry)
+            throw e.cause ?: e
+        }
+    }
+
+    private fun trimToSize(size: Int) {
+        synchronized(evictionLock) {
             while (map.size > size) {
-                val key = map.entries.iterator().next().key
-                map.remove(key)
-                evictionCount++
+                var eldestKey: K? = null
+                var eldestEntry: Entry<V>? = null
+                for ((key, entry) in map) {
+                    if (eldestEntry == null || entry.accessStamp < eldestEntry.accessStamp) {
+                        eldestKey = key
+                        eldestEntry = entry
+                    }
+                }
+
+                if (eldestKey == null || eldestEntry == null) return
+                if (map.remove(eldestKey, eldestEntry)) {
+                    evictionCount.incrementAndGet()
+                }
             }
         }
     }
+
+    // endregion
+
+    private class Entry<V>(
+        val task: FutureTask<V>
+    ) {
+        @Volatile
+        var accessStamp: Long = 0L
+    }
 }
@@ -1,6 +1,5 @@
 package fr.xgouchet.elmyr.regex
 
-import fr.xgouchet.elmyr.ForgeryFactory
 import fr.xgouchet.elmyr.regex.node.BackReferenceNode
 import fr.xgouchet.elmyr.regex.node.GroupNode
 import fr.xgouchet.elmyr.regex.node.RootNode
@@ -10,21 +9,25 @@ import fr.xgouchet.elmyr.regex.state.State
 
 internal class RegexParser {
 
-    val cache = LRUCache<String, ForgeryFactory<String>>(REGEX_CACHE_SIZE) { regex ->
+    val cache = LRUCache<String, RegexStringFactory>(REGEX_CACHE_SIZE) { regex ->
         generateFactory(regex)
     }
 
     // region RegexParser
 
-    fun getFactory(regex: String): ForgeryFactory<String> {
+    fun getFactory(regex: String): RegexStringFactory {
         return cache.get(regex)
     }
 
+    fun getStats(): CacheStats {
+        return cache.stats()
+    }
+
     // endregion
 
     // region Internal
 
-    private fun generateFactory(regex: String): ForgeryFactory<String> {
+    private fun generateFactory(regex: String): RegexStringFactory {
 
         val root = RootNode()
         val sequence = SequenceNode(root).also { root.add(it) }
@@ -47,7 +50,6 @@ internal class RegexParser {
                 } else {
                     val groupNode = groups[ref - 1]
                     check(!it.isDescendantOf(groupNode)) { "Illegal recursive back reference /\\$ref/" }
-                    it.referencedGroup = groupNode
                 }
             }
         }
@@ -58,6 +60,12 @@ internal class RegexParser {
     // endregion
 
     companion object {
-        const val REGEX_CACHE_SIZE = 64
+        const val REGEX_CACHE_SIZE = 256
+
+        /**
+         * The parser shared by all [fr.xgouchet.elmyr.Forge] instances, so that a given regex is only
+         * parsed once per process.
+         */
+        internal val shared: RegexParser = RegexParser()
     }
 }
@@ -2,19 +2,216 @@ package fr.xgouchet.elmyr.regex
 
 import fr.xgouchet.elmyr.Forge
 import fr.xgouchet.elmyr.ForgeryFactory
+import fr.xgouchet.elmyr.kotlin.ForgedSequence
+import fr.xgouchet.elmyr.regex.automaton.Dfa
+import fr.xgouchet.elmyr.regex.automaton.NearMissEditor
+import fr.xgouchet.elmyr.regex.automaton.NfaCompiler
+import fr.xgouchet.elmyr.regex.automaton.ShortlexEnumerator
+import fr.xgouchet.elmyr.regex.automaton.UniformSampler
+import fr.xgouchet.elmyr.regex.charset.CharRangeSet
+import fr.xgouchet.elmyr.regex.length.LengthConstrainedGenerator
 import fr.xgouchet.elmyr.regex.node.Node
+import fr.xgouchet.elmyr.regex.program.RegexCompiler
+import fr.xgouchet.elmyr.regex.program.RegexContext
+import fr.xgouchet.elmyr.regex.program.RegexProgram
+import java.nio.channels.Channels
+import java.nio.channels.WritableByteChannel
+import java.nio.charset.Charset
 
+/**
+ * Generates strings matching a parsed regex.
+ *
+ * The factory is immutable (the state of each generation is kept in a [RegexContext]), and can be
+ * shared between threads.
+ */
 internal class RegexStringFactory(
     internal val rootNode: Node
 ) : ForgeryFactory<String> {
 
+    internal val program: RegexProgram = RegexCompiler.compile(rootNode)
+
+    // automata are only built when needed, as they are larger and slower to build than the program
+    internal val automaton: Dfa by lazy { Dfa.of(NfaCompiler.compile(rootNode)) }
+
+    private val uniformSampler: UniformSampler by lazy { UniformSampler(automaton) }
+
+    // the same automaton, with all printable characters in its alphabet
+    private val printableAutomaton: Dfa by lazy { Dfa.of(NfaCompiler.compile(rootNode, CharRangeSet.PRINTABLE)) }
+
+    // as the factories are cached, the samplers only keep the counts of short strings between calls
+    private val complementSampler: UniformSampler by lazy { UniformSampler(printableAutomaton.complement()) }
+
+    // the length analysis is kept for the largest maximum length requested so far (up to a limit)
+    @Volatile
+    private var lengthConstrainedGenerator: LengthConstrainedGenerator? = null
+
+    // region ForgeryFactory
+
     override fun getForgery(forge: Forge): String {
-        val stringBuilder = StringBuilder()
-        rootNode.build(forge, stringBuilder)
-        return stringBuilder.toString()
+        return nextForgery(forge, program.newContext())
+    }
+
+    // endregion
+
+    // region RegexStringFactory
+
+    /**
+     * Generates several strings, reusing the same builder and capture state for all of them.
+     * @param forge the forge to use
+     * @param size the number of strings to generate
+     * @return a list of strings matching the regex
+     */
+    fun getForgeries(forge: Forge, size: Int): List<String> {
+        val context = program.newContext()
+        return List(size) { nextForgery(forge, context) }
+    }
+
+    /**
+     * Lazily generates strings, reusing the same builder and capture state for all the strings
+     * generated by one iterator.
+     * @param forge the forge to use
+     * @param size the number of strings in the sequence
+     * @return a sequence of strings matching the regex
+     */
+    fun getForgerySequence(forge: Forge, size: Int): Sequence<String> {
+        return Sequence {
+            val context = program.newContext()
+            ForgedSequence(size) { nextForgery(forge, context) }.iterator()
+        }
+    }
+
+    /**
+     * Generates a string and appends it to the given [Appendable]. When the appendable is a
+     * [StringBuilder], the string is generated directly in it, otherwise the string is streamed to
+     * the appendable in chunks of [chunkSize] chars, without ever being fully kept in memory.
+     * @param forge the forge to use
+     * @param appendable the appendable to write the string to
+     * @param chunkSize the number of chars written at once
+     */
+    fun appendForgery(forge: Forge, appendable: Appendable, chunkSize: Int = RegexContext.DEFAULT_CHUNK_SIZE) {
+        if (appendable is StringBuilder) {
+            program.generate(forge, program.newContext(appendable))
+        } else {
+            program.generate(forge, program.newStreamingContext(appendable, chunkSize))
+        }
+    }
+
+    /**
+     * Generates a string and streams it to the given channel, encoded with the given charset. The
+     * channel is not closed.
+     * @param forge the forge to use
+     * @param channel the channel to write the string to
+     * @param charset the charset used to encode the string
+     */
+    fun writeForgery(forge: Forge, channel: WritableByteChannel, charset: Charset) {
+        val writer = Channels.newWriter(channel, charset.newEncoder(), RegexContext.DEFAULT_CHUNK_SIZE)
+        appendForgery(forge, writer)
+        writer.flush()
+    }
+
+    /**
+     * Generates a string with a length in the given range.
+     * @param forge the forge to use
+     * @param minLength the minimum length of the string (inclusive)
+     * @param maxLength the maximum length of the string (inclusive)
+     * @return a string matching the regex
+     * @see LengthConstrainedGenerator
+     */
+    fun getForgery(forge: Forge, minLength: Int, maxLength: Int): String {
+        val builder = StringBuilder()
+        getLengthConstrainedGenerator(maxLength).generate(forge, minLength, maxLength, builder)
+        return builder.toString()
+    }
+
+    /**
+     * Generates a string matching the regex: picks a length in the given range, then picks the
+     * string uniformly among the matching strings with that length.
+     * @param forge the forge to use
+     * @param minLength the minimum length of the string (inclusive)
+     * @param maxLength the maximum length of the string (inclusive)
+     * @return a string matching the regex
+     * @see UniformSampler
+     */
+    fun getUniformForgery(forge: Forge, minLength: Int, maxLength: Int): String {
+        val builder = StringBuilder()
+        uniformSampler.generate(forge, minLength, maxLength, builder)
+        return builder.toString()
+    }
+
+    /**
+     * Enumerates all the strings matching the regex, in shortlex order.
+     * @param after the string to start after (excluded), or null to start with the first string
+     * @param limit the maximum number of strings to enumerate
+     * @return a lazy sequence of strings matching the regex
+     * @see ShortlexEnumerator
+     */
+    fun enumerate(after: String?, limit: Long): Sequence<String> {
+        return ShortlexEnumerator(automaton).enumerate(after, limit)
+    }
+
+    /**
+     * Generates a string which doesn't match the regex: picks a length in the given range, then
+     * picks the string uniformly among the non matching strings with that length.
+     * @param forge the forge to use
+     * @param minLength the minimum length of the string (inclusive)
+     * @param maxLength the maximum length of the string (inclusive)
+     * @return a string not matching the regex
+     */
+    fun getNonMatchingForgery(forge: Forge, minLength: Int, maxLength: Int): String {
+        val builder = StringBuilder()
+        complementSampler.generate(forge, minLength, maxLength, builder)
+        return builder.toString()
     }
 
+    /**
+     * Generates a string matching the regex, then edits a single position (replacing, inserting or
+     * deleting a character) so that it doesn't match anymore.
+     * @param forge the forge to use
+     * @return a string not matching the regex, one edit away from a matching string
+     */
+    fun getNearMissForgery(forge: Forge): String {
+        return NearMissEditor(printableAutomaton).edit(forge, getForgery(forge))
+    }
+
+    // endregion
+
+    // region Object
+
     override fun toString(): String {
         return "$rootNode"
     }
+
+    // endregion
+
+    // region Internal
+
+    private fun getLengthConstrainedGenerator(maxLength: Int): LengthConstrainedGenerator {
+        val generator = lengthConstrainedGenerator
+        if (generator != null && generator.maxLength >= maxLength) return generator
+
+        // the analysis grows with the maximum length, and the factory lives in a shared cache
+        if (maxLength > MAX_CACHED_LENGTH) return LengthConstrainedGenerator(rootNode, maxLength)
+
+        return synchronized(this) {
+            val current = lengthConstrainedGenerator
+            if (current != null && current.maxLength >= maxLength) {
+                current
+            } else {
+                LengthConstrainedGenerator(rootNode, maxLength).also { lengthConstrainedGenerator = it }
+            }
+        }
+    }
+
+    private fun nextForgery(forge: Forge, context: RegexContext): String {
+        context.builder.setLength(0)
+        program.generate(forge, context)
+        return context.builder.toString()
+    }
+
+    // endregion
+
+    companion object {
+        /** The maximum length for which the length analysis is kept between calls. */
+        internal const val MAX_CACHED_LENGTH = 0x400
+    }
 }
@@ -0,0 +1,137 @@
+package fr.xgouchet.elmyr.regex.automaton
+
+import fr.xgouchet.elmyr.regex.charset.CharRangeSet
+
+/**
+ * Partitions the code points used by a regex into disjoint atoms: two code points belong to the same
+ * atom if and only if they belong to the same character sets. Automata can then use atoms as their
+ * (small) alphabet, instead of individual code points.
+ *
+ * The code points are also indexed as sorted disjoint intervals, each belonging to a single atom,
+ * to walk through them in ascending order.
+ */
+internal class Alphabet
+private constructor(
+    val atoms: Array<CharRangeSet>,
+    private val intervalStarts: IntArray,
+    private val intervalEnds: IntArray,
+    private val intervalAtoms: IntArray
+) {
+
+    /** The number of atoms in this alphabet. */
+    val size: Int
+        get() = atoms.size
+
+    /** The number of intervals in this alphabet. */
+    val intervalCount: Int
+        get() = intervalStarts.size
+
+    // region Alphabet
+
+    fun intervalStart(intervalIndex: Int): Int = intervalStarts[intervalIndex]
+
+    fun intervalEnd(intervalIndex: Int): Int = intervalEnds[intervalIndex]
+
+    fun intervalAtom(intervalIndex: Int): Int = intervalAtoms[intervalIndex]
+
+    /**
+     * @param codePoint a code point
+     * @return the index of the interval containing the code point, or of the first interval after
+     * it (the result is [intervalCount] if there is none)
+     */
+    fun intervalIndexFrom(codePoint: Int): Int {
+        var low = 0
+        var high = intervalStarts.size
+        while (low < high) {
+            val mid = (low + high) ushr 1
+            if (intervalEnds[mid] < codePoint) {
+                low = mid + 1
+            } else {
+                high = mid
+            }
+        }
+        return low
+    }
+
+    /**
+     * @param codePoint a code point
+     * @return the index of the atom containing the code point, or -1 if it is not in this alphabet
+     */
+    fun atomOf(codePoint: Int): Int {
+        val intervalIndex = intervalIndexFrom(codePoint)
+        return if (intervalIndex < intervalStarts.size && intervalStarts[intervalIndex] <= codePoint) {
+            intervalAtoms[intervalIndex]
+        } else {
+            -1
+        }
+    }
+
+    /**
+     * @param charRangeSet one of the sets this alphabet was built from
+     * @return the indices of the atoms composing the set
+     */
+    fun atomsOf(charRangeSet: CharRangeSet): IntArray {
+        val atomIndices = sortedSetOf<Int>()
+        for (i in 0 until charRangeSet.rangeCount) {
+            var intervalIndex = intervalIndexFrom(charRangeSet.rangeStart(i))
+            while (intervalIndex < intervalStarts.size &&
+                intervalStarts[intervalIndex] <= charRangeSet.rangeEnd(i)
+            ) {
+                atomIndices.add(intervalAtoms[intervalIndex])
+                intervalIndex++
+            }
+        }
+        return atomIndices.toIntArray()
+    }
+
+    // endregion
+
+    companion object {
+
+        /**
+         * @param charRangeSets the character sets used by a regex
+         * @return the alphabet partitioning all the code points in the given sets
+         */
+        fun of(charRangeSets: Collection<CharRangeSet>): Alphabet {
+            // the boundaries of elementary intervals, where the membership to a set can change
+            val boundaries = sortedSetOf<Int>()
+            charRangeSets.forEach { set ->
+                for (i in 0 until set.rangeCount) {
+                    boundaries.add(set.rangeStart(i))
+                    boundaries.add(set.rangeEnd(i) + 1)
+                }
+            }
+
+            val distinctSets = charRangeSets.distinct()
+            val atomIndices = mutableMapOf<List<Boolean>, Int>()
+            val atomBuilders = mutableListOf<CharRangeSet.Builder>()
+            val intervalStarts = mutableListOf<Int>()
+            val intervalEnds = mutableListOf<Int>()
+            val intervalAtoms = mutableListOf<Int>()
+
+            val sortedBoundaries = boundaries.toIntArray()
+            for (i in 0 until sortedBoundaries.lastIndex) {
+                val start = sortedBoundaries[i]
+                val end = sortedBoundaries[i + 1] - 1
+                val signature = distinctSets.map { start in it }
+                if (signature.none { it }) continue
+
+                val atomIndex = atomIndices.getOrPut(signature) {
+                    atomBuilders.add(CharRangeSet.Builder())
+                    atomBuilders.lastIndex
+                }
+                atomBuilders[atomIndex].addRange(start, end)
+                intervalStarts.add(start)
+                intervalEnds.add(end)
+                intervalAtoms.add(atomIndex)
+            }
+
+            return Alphabet(
+                atoms = atomBuilders.map { it.build() }.toTypedArray(),
+                intervalStarts = intervalStarts.toIntArray(),
+                intervalEnds = intervalEnds.toIntArray(),
+                intervalAtoms = intervalAtoms.toIntArray()
+            )
+        }
+    }
+}
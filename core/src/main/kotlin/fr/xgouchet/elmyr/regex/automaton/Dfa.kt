@@ -0,0 +1,180 @@
+package fr.xgouchet.elmyr.regex.automaton
+
+import java.util.BitSet
+
+/**
+ * A deterministic finite automaton, with transitions labelled by atoms of an [Alphabet].
+ *
+ * The automaton is trimmed: every state but the start state can reach an accepting state, and
+ * transitions leading nowhere are omitted (they lead to [DEAD]). The start state is always 0.
+ */
+internal class Dfa
+private constructor(
+    val alphabet: Alphabet,
+    val stateCount: Int,
+    // transitions[(state * alphabet.size) + atom] = the target state, or DEAD
+    private val transitions: IntArray,
+    private val accepting: BooleanArray
+) {
+
+    // region Dfa
+
+    fun next(state: Int, atom: Int): Int {
+        return transitions[(state * alphabet.size) + atom]
+    }
+
+    fun isAccepting(state: Int): Boolean = accepting[state]
+
+    /** @return true if the automaton doesn't accept any string */
+    fun isEmpty(): Boolean {
+        return !accepting[START_STATE] && (0 until alphabet.size).all { next(START_STATE, it) == DEAD }
+    }
+
+    /**
+     * @param state the state to start from
+     * @param string the string to read
+     * @return the state reached after reading the string, or [DEAD]
+     */
+    fun run(state: Int, string: CharSequence): Int {
+        var current = state
+        var index = 0
+        while (index < string.length && current != DEAD) {
+            val codePoint = Character.codePointAt(string, index)
+            val atom = alphabet.atomOf(codePoint)
+            current = if (atom < 0) DEAD else next(current, atom)
+            index += Character.charCount(codePoint)
+        }
+        return current
+    }
+
+    fun accepts(string: CharSequence): Boolean {
+        val state = run(START_STATE, string)
+        return state != DEAD && accepting[state]
+    }
+
+    /**
+     * @return an automaton accepting all the strings (made of this automaton's alphabet) that this
+     * automaton rejects
+     */
+    fun complement(): Dfa {
+        val atomCount = alphabet.size
+        val sinkState = stateCount
+        val completeTransitions = IntArray((stateCount + 1) * atomCount) { sinkState }
+        for (i in transitions.indices) {
+            if (transitions[i] != DEAD) completeTransitions[i] = transitions[i]
+        }
+        val flippedAccepting = BooleanArray(stateCount + 1) { it == sinkState || !accepting[it] }
+        return trim(alphabet, stateCount + 1, completeTransitions, flippedAccepting)
+    }
+
+    // endregion
+
+    companion object {
+
+        const val START_STATE = 0
+        const val DEAD = -1
+
+        private const val MAX_DFA_STATES = 0x1000
+
+        /**
+         * Builds the DFA equivalent to the given NFA (using the powerset construction).
+         */
+        fun of(nfa: Nfa): Dfa {
+            val atomCount = nfa.alphabet.size
+            val stateIndices = mutableMapOf<BitSet, Int>()
+            val stateSets = mutableListOf<BitSet>()
+            val transitions = mutableListOf<Int>()
+
+            val startSet = BitSet().apply { set(nfa.startState) }
+            nfa.closeOverEpsilon(startSet)
+            stateIndices[startSet] = 0
+            stateSets.add(startSet)
+
+            var index = 0
+            while (index < stateSets.size) {
+                val moves = nfa.moves(stateSets[index])
+                for (atom in 0 until atomCount) {
+                    val targetSet = moves[atom]
+                    if (targetSet == null) {
+                        transitions.add(DEAD)
+                    } else {
+                        nfa.closeOverEpsilon(targetSet)
+                        val target = stateIndices.getOrPut(targetSet) {
+                            check(stateSets.size < MAX_DFA_STATES) {
+                                "The regex is too complex to be converted into an automaton " +
+                                    "(more than $MAX_DFA_STATES states)"
+                            }
+                            stateSets.add(targetSet)
+                            stateSets.lastIndex
+                        }
+                        transitions.add(target)
+                    }
+                }
+                index++
+            }
+
+            val accepting = BooleanArray(stateSets.size) { stateSets[it][nfa.acceptingState] }
+            return trim(nfa.alphabet, stateSets.size, transitions.toIntArray(), accepting)
+        }
+
+        /**
+         * Removes the states which can't be reached from the start state, or can't reach an
+         * accepting state.
+         */
+        private fun trim(
+            alphabet: Alphabet,
+            stateCount: Int,
+            transitions: IntArray,
+            accepting: BooleanArray
+        ): Dfa {
+            val atomCount = alphabet.size
+
+            // states from which an accepting state can be reached (walking the transitions backward)
+            val predecessors = Array(stateCount) { mutableListOf<Int>() }
+            for (state in 0 until stateCount) {
+                for (atom in 0 until atomCount) {
+                    val target = transitions[(state * atomCount) + atom]
+                    if (target != DEAD) predecessors[target].add(state)
+                }
+            }
+            val live = BooleanArray(stateCount) { accepting[it] }
+            val pendingStates = ArrayDeque((0 until stateCount).filter { accepting[it] })
+            while (pendingStates.isNotEmpty()) {
+                predecessors[pendingStates.removeLast()].forEach {
+                    if (!live[it]) {
+                        live[it] = true
+                        pendingStates.addLast(it)
+                    }
+                }
+            }
+
+            // renumber the live states reachable from the start state
+            val newIndices = IntArray(stateCount) { DEAD }
+            val oldStates = mutableListOf(START_STATE)
+            newIndices[START_STATE] = 0
+            var index = 0
+            while (index < oldStates.size) {
+                val state = oldStates[index]
+                for (atom in 0 until atomCount) {
+                    val target = transitions[(state * atomCount) + atom]
+                    if (target != DEAD && live[target] && newIndices[target] == DEAD) {
+                        newIndices[target] = oldStates.size
+                        oldStates.add(target)
+                    }
+                }
+                index++
+            }
+
+            val newTransitions = IntArray(oldStates.size * atomCount)
+            oldStates.forEachIndexed { newState, oldState ->
+                for (atom in 0 until atomCount) {
+                    val target = transitions[(oldState * atomCount) + atom]
+                    newTransitions[(newState * atomCount) + atom] = if (target == DEAD) DEAD else newIndices[target]
+                }
+            }
+            val newAccepting = BooleanArray(oldStates.size) { accepting[oldStates[it]] }
+
+            return Dfa(alphabet, oldStates.size, newTransitions, newAccepting)
+        }
+    }
+}
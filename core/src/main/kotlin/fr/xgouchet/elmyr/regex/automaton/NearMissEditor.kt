@@ -0,0 +1,99 @@
+package fr.xgouchet.elmyr.regex.automaton
+
+import fr.xgouchet.elmyr.Forge
+import fr.xgouchet.elmyr.regex.charset.CharRangeSet
+
+/**
+ * Edits a string accepted by a [Dfa] at a single position, so that the result is rejected.
+ *
+ * Replacing a character is preferred, then inserting one, then deleting one. For each kind of edit,
+ * positions are tried in a random order, and the new character is picked uniformly among the ones
+ * (from the automaton's alphabet) making the string rejected.
+ */
+internal class NearMissEditor(
+    private val dfa: Dfa
+) {
+
+    // region NearMissEditor
+
+    /**
+     * @param forge the forge to use
+     * @param match a string accepted by the automaton
+     * @return a string rejected by the automaton, one edit away from the given string
+     */
+    fun edit(forge: Forge, match: String): String {
+        val codePoints = match.codePoints().toArray()
+
+        // states[i] is the state reached after reading codePoints[0 until i]
+        val states = IntArray(codePoints.size + 1)
+        for (i in codePoints.indices) {
+            states[i + 1] = step(states[i], codePoints[i])
+            require(states[i + 1] != Dfa.DEAD) { "The string \"$match\" is not accepted by the automaton" }
+        }
+
+        for (i in forge.shuffle(codePoints.indices.toList())) {
+            val chars = rejectingChars(states[i], codePoints, i + 1) -
+                CharRangeSet.range(codePoints[i], codePoints[i])
+            if (!chars.isEmpty()) {
+                return editedString(codePoints, i, 1, chars.aCodePoint(forge))
+            }
+        }
+
+        for (i in forge.shuffle((0..codePoints.size).toList())) {
+            val chars = rejectingChars(states[i], codePoints, i)
+            if (!chars.isEmpty()) {
+                return editedString(codePoints, i, 0, chars.aCodePoint(forge))
+            }
+        }
+
+        for (i in forge.shuffle(codePoints.indices.toList())) {
+            if (rejectsSuffix(states[i], codePoints, i + 1)) {
+                return editedString(codePoints, i, 1, null)
+            }
+        }
+
+        throw IllegalArgumentException("Unable to edit \"$match\" so that it doesn't match anymore")
+    }
+
+    // endregion
+
+    // region Internal
+
+    /**
+     * @return the characters which, read from the given state, lead to rejecting the suffix
+     */
+    private fun rejectingChars(state: Int, codePoints: IntArray, suffixIndex: Int): CharRangeSet {
+        val builder = CharRangeSet.Builder()
+        for (atom in 0 until dfa.alphabet.size) {
+            val target = dfa.next(state, atom)
+            if (target == Dfa.DEAD || rejectsSuffix(target, codePoints, suffixIndex)) {
+                builder.addSet(dfa.alphabet.atoms[atom])
+            }
+        }
+        return builder.build()
+    }
+
+    private fun rejectsSuffix(state: Int, codePoints: IntArray, suffixIndex: Int): Boolean {
+        var current = state
+        for (i in suffixIndex until codePoints.size) {
+            if (current == Dfa.DEAD) return true
+            current = step(current, codePoints[i])
+        }
+        return current == Dfa.DEAD || !dfa.isAccepting(current)
+    }
+
+    private fun step(state: Int, codePoint: Int): Int {
+        val atom = dfa.alphabet.atomOf(codePoint)
+        return if (atom < 0) Dfa.DEAD else dfa.next(state, atom)
+    }
+
+    private fun editedString(codePoints: IntArray, index: Int, removedCount: Int, inserted: Int?): String {
+        val builder = StringBuilder()
+        for (i in 0 until index) builder.appendCodePoint(codePoints[i])
+        inserted?.let { builder.appendCodePoint(it) }
+        for (i in (index + removedCount) until codePoints.size) builder.appendCodePoint(codePoints[i])
+        return builder.toString()
+    }
+
+    // endregion
+}
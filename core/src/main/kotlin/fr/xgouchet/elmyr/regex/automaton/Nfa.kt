@@ -0,0 +1,89 @@
+package fr.xgouchet.elmyr.regex.automaton
+
+import java.util.BitSet
+
+/**
+ * A non deterministic finite automaton, with transitions labelled by atoms of an [Alphabet], and
+ * epsilon transitions. State 0 is the start state, and a single state is accepting.
+ */
+internal class Nfa(
+    val alphabet: Alphabet,
+    private val maxStateCount: Int
+) {
+
+    private val epsilonTargets = mutableListOf<MutableList<Int>>()
+    private val atomTransitions = mutableListOf<MutableList<Transition>>()
+
+    val stateCount: Int
+        get() = epsilonTargets.size
+
+    val startState: Int = newState()
+
+    val acceptingState: Int = newState()
+
+    // region Nfa
+
+    fun newState(): Int {
+        check(epsilonTargets.size < maxStateCount) {
+            "The regex is too complex to be converted into an automaton (more than $maxStateCount states)"
+        }
+        epsilonTargets.add(mutableListOf())
+        atomTransitions.add(mutableListOf())
+        return epsilonTargets.lastIndex
+    }
+
+    fun addEpsilon(from: Int, to: Int) {
+        epsilonTargets[from].add(to)
+    }
+
+    fun addTransition(from: Int, atoms: IntArray, to: Int) {
+        atomTransitions[from].add(Transition(atoms, to))
+    }
+
+    /**
+     * Adds to the given set all the states reachable from its states with epsilon transitions.
+     */
+    fun closeOverEpsilon(states: BitSet) {
+        val pendingStates = ArrayDeque<Int>()
+        var state = states.nextSetBit(0)
+        while (state >= 0) {
+            pendingStates.addLast(state)
+            state = states.nextSetBit(state + 1)
+        }
+        while (pendingStates.isNotEmpty()) {
+            epsilonTargets[pendingStates.removeLast()].forEach {
+                if (!states[it]) {
+                    states.set(it)
+                    pendingStates.addLast(it)
+                }
+            }
+        }
+    }
+
+    /**
+     * @param states a set of states
+     * @return the states reachable from the given ones when reading a code point in each atom
+     * (indexed by atom, null if no state is reachable)
+     */
+    fun moves(states: BitSet): Array<BitSet?> {
+        val result = arrayOfNulls<BitSet>(alphabet.size)
+        var state = states.nextSetBit(0)
+        while (state >= 0) {
+            atomTransitions[state].forEach { transition ->
+                transition.atoms.forEach { atom ->
+                    val targets = result[atom] ?: BitSet(stateCount).also { result[atom] = it }
+                    targets.set(transition.target)
+                }
+            }
+            state = states.nextSetBit(state + 1)
+        }
+        return result
+    }
+
+    // endregion
+
+    private class Transition(
+        val atoms: IntArray,
+        val target: Int
+    )
+}
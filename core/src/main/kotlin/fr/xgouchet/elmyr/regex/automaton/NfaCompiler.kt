@@ -0,0 +1,182 @@
+package fr.xgouchet.elmyr.regex.automaton
+
+import fr.xgouchet.elmyr.regex.charset.CharRangeSet
+import fr.xgouchet.elmyr.regex.node.AlternationNode
+import fr.xgouchet.elmyr.regex.node.BackReferenceNode
+import fr.xgouchet.elmyr.regex.node.CharacterSetNode
+import fr.xgouchet.elmyr.regex.node.Node
+import fr.xgouchet.elmyr.regex.node.ParentNode
+import fr.xgouchet.elmyr.regex.node.QuantifiedNode
+import fr.xgouchet.elmyr.regex.quantifier.Quantifier
+
+/**
+ * Converts a parsed regex node tree into an [Nfa] (using Thompson's construction).
+ *
+ * Bounded repetitions are expanded (e.g.: `a{2,3}` is compiled as `aaa?`), unbounded ones become
+ * loops. Alternations of plain strings are compiled as a trie, sharing the states of common prefixes
+ * (e.g.: `PUT|POST|PATCH`). Back references can't be represented in a finite automaton and are not
+ * supported.
+ */
+internal class NfaCompiler
+private constructor(
+    private val nfa: Nfa
+) {
+
+    // tasks left to run, in reverse order (the compiler doesn't recurse to support deeply nested regexes)
+    private val pendingTasks = ArrayDeque<() -> Unit>()
+
+    // region Internal
+
+    private fun run(rootNode: Node) {
+        pendingTasks.addLast { compile(rootNode, nfa.startState, nfa.acceptingState) }
+        while (pendingTasks.isNotEmpty()) {
+            pendingTasks.removeLast().invoke()
+        }
+    }
+
+    /**
+     * Adds the states and transitions matching the node between the two given states.
+     */
+    private fun compile(node: Node, from: Int, to: Int) {
+        when (node) {
+            is CharacterSetNode -> nfa.addTransition(from, nfa.alphabet.atomsOf(node.charRangeSet), to)
+            is QuantifiedNode -> compileQuantified(node, from, to)
+            is AlternationNode -> compileAlternation(node, from, to)
+            is BackReferenceNode -> throw IllegalStateException(
+                "Back references (/${node.toRegex()}/) are not supported in automata"
+            )
+            is ParentNode -> compileSequence(node.getChildNodes(), from, to)
+            else -> throw IllegalStateException("Unable to compile node $node")
+        }
+    }
+
+    private fun compileSequence(children: List<Node>, from: Int, to: Int) {
+        if (children.isEmpty()) {
+            nfa.addEpsilon(from, to)
+            return
+        }
+
+        var current = from
+        children.forEachIndexed { index, child ->
+            val next = if (index == children.lastIndex) to else nfa.newState()
+            val childFrom = current
+            pendingTasks.addLast { compile(child, childFrom, next) }
+            current = next
+        }
+    }
+
+    private fun compileAlternation(node: AlternationNode, from: Int, to: Int) {
+        val literals = node.literalAlternatives
+        if (literals == null) {
+            node.getChildNodes().forEach { alternative ->
+                pendingTasks.addLast { compile(alternative, from, to) }
+            }
+            return
+        }
+
+        // trieStates[(state, char)] = the state reached from the given state when reading the char;
+        // the last char of each literal leads straight to the end state, so that all the literals
+        // ending the same way share their end (e.g.: /ab|cb/ and /[ac]b/ give the same automaton)
+        val trieStates = mutableMapOf<Pair<Int, Char>, Int>()
+        val lastTransitions = mutableSetOf<Pair<Int, Char>>()
+        literals.forEach { literal ->
+            if (literal.isEmpty()) {
+                nfa.addEpsilon(from, to)
+                return@forEach
+            }
+            var state = from
+            for (c in literal.substring(0, literal.length - 1)) {
+                val previous = state
+                state = trieStates.getOrPut(previous to c) {
+                    nfa.newState().also { addCharTransition(previous, c, it) }
+                }
+            }
+            val lastChar = literal.last()
+            if (lastTransitions.add(state to lastChar)) {
+                addCharTransition(state, lastChar, to)
+            }
+        }
+    }
+
+    private fun addCharTransition(from: Int, c: Char, to: Int) {
+        nfa.addTransition(from, intArrayOf(nfa.alphabet.atomOf(c.code)), to)
+    }
+
+    private fun compileQuantified(node: QuantifiedNode, from: Int, to: Int) {
+        val quantifier = node.quantifier
+
+        // mandatory repetitions
+        var current = from
+        repeat(quantifier.minQuantity) {
+            val next = nfa.newState()
+            val bodyFrom = current
+            pendingTasks.addLast { compile(node.node, bodyFrom, next) }
+            current = next
+        }
+
+        if (quantifier.maxQuantity == Quantifier.UNBOUNDED) {
+            // loop over a fresh pair of states
+            val loopStart = nfa.newState()
+            val loopEnd = nfa.newState()
+            nfa.addEpsilon(current, loopStart)
+            nfa.addEpsilon(loopEnd, loopStart)
+            nfa.addEpsilon(loopStart, to)
+            pendingTasks.addLast { compile(node.node, loopStart, loopEnd) }
+        } else {
+            // optional repetitions, each one can exit early
+            repeat(quantifier.maxQuantity - quantifier.minQuantity) {
+                val next = nfa.newState()
+                val bodyFrom = current
+                nfa.addEpsilon(bodyFrom, to)
+                pendingTasks.addLast { compile(node.node, bodyFrom, next) }
+                current = next
+            }
+            nfa.addEpsilon(current, to)
+        }
+    }
+
+    // endregion
+
+    companion object {
+
+        private const val MAX_NFA_STATES = 0x10000
+
+        /**
+         * @param rootNode the root of a parsed regex
+         * @param universe an optional set of code points to add to the automaton's alphabet
+         * @return the NFA matching the regex
+         */
+        fun compile(rootNode: Node, universe: CharRangeSet? = null): Nfa {
+            val charRangeSets = collectCharRangeSets(rootNode)
+            universe?.let { charRangeSets.add(it) }
+
+            val compiler = NfaCompiler(Nfa(Alphabet.of(charRangeSets), MAX_NFA_STATES))
+            compiler.run(rootNode)
+            return compiler.nfa
+        }
+
+        private fun collectCharRangeSets(rootNode: Node): MutableList<CharRangeSet> {
+            val charRangeSets = mutableListOf<CharRangeSet>()
+            val pendingNodes = ArrayDeque<Node>()
+            pendingNodes.addLast(rootNode)
+            val literalChars = mutableSetOf<Char>()
+            while (pendingNodes.isNotEmpty()) {
+                when (val node = pendingNodes.removeLast()) {
+                    is CharacterSetNode -> charRangeSets.add(node.charRangeSet)
+                    is AlternationNode -> {
+                        val literals = node.literalAlternatives
+                        if (literals == null) {
+                            node.getChildNodes().forEach { pendingNodes.addLast(it) }
+                        } else {
+                            literals.forEach { literal -> literal.forEach { literalChars.add(it) } }
+                        }
+                    }
+                    is QuantifiedNode -> pendingNodes.addLast(node.node)
+                    is ParentNode -> node.getChildNodes().forEach { pendingNodes.addLast(it) }
+                }
+            }
+            literalChars.forEach { charRangeSets.add(CharRangeSet.of(it)) }
+            return charRangeSets
+        }
+    }
+}
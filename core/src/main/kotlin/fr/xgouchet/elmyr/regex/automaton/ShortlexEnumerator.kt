@@ -0,0 +1,179 @@
+package fr.xgouchet.elmyr.regex.automaton
+
+/**
+ * Enumerates all the strings accepted by a [Dfa] in shortlex order: by increasing length (in code
+ * points), then in lexicographic order of code points.
+ *
+ * Each string is computed from the previous one, by finding the rightmost position where a greater
+ * code point can still lead to an accepted string of the same length. The enumeration is lazy, and
+ * stops once it is certain that no longer string can be accepted.
+ */
+internal class ShortlexEnumerator(
+    private val dfa: Dfa
+) {
+
+    // region ShortlexEnumerator
+
+    /**
+     * @param after the string to start after (excluded), or null to start with the first string
+     * @param limit the maximum number of strings to enumerate
+     * @return a lazy sequence of the accepted strings
+     */
+    fun enumerate(after: String?, limit: Long): Sequence<String> {
+        require(limit >= 0) { "The limit ($limit) must be a positive (or null) value" }
+        return Sequence { Cursor(after?.codePoints()?.toArray(), limit) }
+    }
+
+    // endregion
+
+    /**
+     * An iterator over the accepted strings, keeping the current string as an array of code points.
+     */
+    private inner class Cursor(
+        private var current: IntArray?,
+        private val limit: Long
+    ) : Iterator<String> {
+
+        // liveStates[length][state] = true if an accepted string of the given length starts in the state
+        private val liveStates = mutableListOf<BooleanArray>()
+
+        private var enumeratedCount = 0L
+        private var nextWord: IntArray? = null
+        private var isExhausted = false
+
+        // region Iterator
+
+        override fun hasNext(): Boolean {
+            if (nextWord == null && !isExhausted) {
+                nextWord = if (enumeratedCount < limit) findNextWord() else null
+                isExhausted = (nextWord == null)
+            }
+            return nextWord != null
+        }
+
+        override fun next(): String {
+            if (!hasNext()) throw NoSuchElementException()
+            val word = checkNotNull(nextWord)
+            nextWord = null
+            current = word
+            enumeratedCount++
+            return String(word, 0, word.size)
+        }
+
+        // endregion
+
+        // region Internal
+
+        private fun findNextWord(): IntArray? {
+            val previous = current
+            var length = 0
+            if (previous != null) {
+                val nextWord = nextWordAfter(previous)
+                if (nextWord != null) return nextWord
+                length = previous.size + 1
+            }
+
+            // if no string is accepted for as many consecutive lengths as the automaton has states,
+            // no longer string can be accepted either (otherwise it could be pumped down)
+            var emptyLengthCount = 0
+            while (emptyLengthCount < dfa.stateCount) {
+                if (isLive(length, Dfa.START_STATE)) return smallestWord(length)
+                emptyLengthCount++
+                length++
+            }
+            return null
+        }
+
+        /**
+         * @return the smallest accepted string with the same length as the given one, and greater
+         * than it, or null if there is none
+         */
+        private fun nextWordAfter(word: IntArray): IntArray? {
+            val length = word.size
+            if (!isLive(length, Dfa.START_STATE)) return null
+
+            // states[i] is the state reached after reading word[0 until i], while it can still lead
+            // to an accepted string of the right length
+            val states = IntArray(length + 1)
+            states[0] = Dfa.START_STATE
+            var validPrefixLength = 0
+            while (validPrefixLength < length) {
+                val target = target(states[validPrefixLength], word[validPrefixLength])
+                if (target == Dfa.DEAD || !isLive(length - validPrefixLength - 1, target)) break
+                states[validPrefixLength + 1] = target
+                validPrefixLength++
+            }
+
+            for (i in minOf(validPrefixLength, length - 1) downTo 0) {
+                if (word[i] == Character.MAX_CODE_POINT) continue
+                val codePoint = smallestCodePoint(states[i], word[i] + 1, length - i - 1)
+                if (codePoint >= 0) {
+                    val nextWord = word.copyOf()
+                    nextWord[i] = codePoint
+                    completeWithSmallest(nextWord, i + 1, target(states[i], codePoint))
+                    return nextWord
+                }
+            }
+            return null
+        }
+
+        private fun smallestWord(length: Int): IntArray {
+            val word = IntArray(length)
+            completeWithSmallest(word, 0, Dfa.START_STATE)
+            return word
+        }
+
+        /**
+         * Fills the word from the given index with the smallest code points leading to acceptance.
+         */
+        private fun completeWithSmallest(word: IntArray, fromIndex: Int, fromState: Int) {
+            var state = fromState
+            for (i in fromIndex until word.size) {
+                val codePoint = smallestCodePoint(state, 0, word.size - i - 1)
+                check(codePoint >= 0) { "Unable to complete the word from state $state" }
+                word[i] = codePoint
+                state = target(state, codePoint)
+            }
+        }
+
+        /**
+         * @return the smallest code point (greater than or equal to the given minimum) leading from
+         * the state to a state where an accepted string of the remaining length starts, or -1
+         */
+        private fun smallestCodePoint(state: Int, minCodePoint: Int, remainingLength: Int): Int {
+            val alphabet = dfa.alphabet
+            for (intervalIndex in alphabet.intervalIndexFrom(minCodePoint) until alphabet.intervalCount) {
+                val target = dfa.next(state, alphabet.intervalAtom(intervalIndex))
+                if (target != Dfa.DEAD && isLive(remainingLength, target)) {
+                    return maxOf(minCodePoint, alphabet.intervalStart(intervalIndex))
+                }
+            }
+            return -1
+        }
+
+        private fun target(state: Int, codePoint: Int): Int {
+            val atom = dfa.alphabet.atomOf(codePoint)
+            return if (atom < 0) Dfa.DEAD else dfa.next(state, atom)
+        }
+
+        private fun isLive(length: Int, state: Int): Boolean {
+            if (liveStates.isEmpty()) {
+                liveStates.add(BooleanArray(dfa.stateCount) { dfa.isAccepting(it) })
+            }
+            while (liveStates.size <= length) {
+                val previous = liveStates.last()
+                liveStates.add(
+                    BooleanArray(dfa.stateCount) { s ->
+                        (0 until dfa.alphabet.size).any {
+                            val target = dfa.next(s, it)
+                            target != Dfa.DEAD && previous[target]
+                        }
+                    }
+                )
+            }
+            return liveStates[length][state]
+        }
+
+        // endregion
+    }
+}
@@ -0,0 +1,229 @@
+package fr.xgouchet.elmyr.regex.automaton
+
+import fr.xgouchet.elmyr.Forge
+import fr.xgouchet.elmyr.regex.charset.CharRangeSet
+import java.math.BigInteger
+
+/**
+ * Picks strings accepted by a [Dfa] uniformly: for a given length, every accepted string has the
+ * same probability to be picked.
+ *
+ * The sampler counts the accepted strings of each length from each state (as big integers, those
+ * counts grow exponentially with the length). Picking a string then only requires one random number
+ * below the number of accepted strings, which is decoded into a path in the automaton.
+ *
+ * Lengths are expressed in chars (like [String.length]): supplementary code points, written as a
+ * surrogate pair, count as two chars. The counts are computed lazily, and kept for further calls:
+ * they are only computed under a lock, then published as an immutable table, so that picking
+ * strings doesn't need to lock.
+ *
+ * The count for a length L needs about L × log2(alphabet size) bits, so the whole table grows with
+ * the square of the maximum length. Only the counts up to [MAX_CACHED_LENGTH] are kept: the counts
+ * for longer strings are computed for each call, and released once the string is picked.
+ */
+internal class UniformSampler(
+    private val dfa: Dfa
+) {
+
+    // edges[state] = the transitions from the state, grouped by target state
+    private val edges: Array<Array<Edge>> = Array(dfa.stateCount) { state ->
+        val charsByTarget = sortedMapOf<Int, CharRangeSet.Builder>()
+        for (atom in 0 until dfa.alphabet.size) {
+            val target = dfa.next(state, atom)
+            if (target != Dfa.DEAD) {
+                charsByTarget.getOrPut(target) { CharRangeSet.Builder() }.addSet(dfa.alphabet.atoms[atom])
+            }
+        }
+        charsByTarget.map { (target, builder) ->
+            val chars = builder.build()
+            Edge(target, chars - CharRangeSet.SUPPLEMENTARY, chars - CharRangeSet.BMP)
+        }.toTypedArray()
+    }
+
+    @Volatile
+    private var countTable = CountTable(
+        counts = arrayOf(Array(dfa.stateCount) { if (dfa.isAccepting(it)) BigInteger.ONE else BigInteger.ZERO }),
+        feasibleLengths = intArrayOf(0, if (dfa.isAccepting(Dfa.START_STATE)) 1 else 0)
+    )
+
+    // region UniformSampler
+
+    /**
+     * @param length a length
+     * @return the number of accepted strings with the given length
+     */
+    fun countMatches(length: Int): BigInteger {
+        return countTable(length).counts[length][Dfa.START_STATE]
+    }
+
+    /**
+     * Picks a length with at least one accepted string in the given range, then picks uniformly one
+     * of the accepted strings with this length.
+     * @param forge the forge to use
+     * @param minLength the minimum length (inclusive)
+     * @param maxLength the maximum length (inclusive)
+     * @param builder the builder to append the picked string to
+     */
+    fun generate(forge: Forge, minLength: Int, maxLength: Int, builder: StringBuilder) {
+        val table = countTable(maxLength)
+        val feasibleCount = table.feasibleLengths[maxLength + 1] - table.feasibleLengths[minLength]
+        require(feasibleCount > 0) {
+            "Unable to forge a string matching the regex with a length between $minLength and $maxLength"
+        }
+        val length = table.nthFeasibleLength(minLength, maxLength, forge.anInt(0, feasibleCount))
+
+        var index = aBigInteger(forge, table.counts[length][Dfa.START_STATE])
+        var state = Dfa.START_STATE
+        var remaining = length
+        while (remaining > 0) {
+            // the strings from the current state are ordered by edge, then by code point length
+            var picked = false
+            for (edge in edges[state]) {
+                for (charCount in 1..2) {
+                    val codePoints = edge.codePoints(charCount)
+                    if (charCount > remaining || codePoints.isEmpty()) continue
+                    val suffixCount = table.counts[remaining - charCount][edge.target]
+                    if (suffixCount.signum() == 0) continue
+
+                    val edgeCount = suffixCount.multiply(BigInteger.valueOf(codePoints.size.toLong()))
+                    if (index < edgeCount) {
+                        val (codePointIndex, suffixIndex) = index.divideAndRemainder(suffixCount)
+                        builder.appendCodePoint(codePoints.codePointAt(codePointIndex.toInt()))
+                        index = suffixIndex
+                        state = edge.target
+                        remaining -= charCount
+                        picked = true
+                        break
+                    }
+                    index -= edgeCount
+                }
+                if (picked) break
+            }
+            check(picked) { "Unable to decode a string of length $length" }
+        }
+    }
+
+    // endregion
+
+    // region Internal
+
+    private fun countTable(maxLength: Int): CountTable {
+        val table = countTable
+        return when {
+            table.counts.size > maxLength -> table
+            maxLength > MAX_CACHED_LENGTH -> extendCountTable(countTable(MAX_CACHED_LENGTH), maxLength)
+            else -> growCountTable(maxLength)
+        }
+    }
+
+    @Synchronized
+    private fun growCountTable(maxLength: Int): CountTable {
+        val table = countTable
+        if (table.counts.size > maxLength) return table
+
+        return extendCountTable(table, maxLength).also { countTable = it }
+    }
+
+    private fun extendCountTable(table: CountTable, maxLength: Int): CountTable {
+        // a string of a given length is a code point (one or two chars) followed by a shorter string
+        var previousCounts = table.counts.last()
+        var beforePreviousCounts = table.counts.getOrNull(table.counts.size - 2)
+        val counts = Array(maxLength + 1) { length ->
+            if (length < table.counts.size) {
+                table.counts[length]
+            } else {
+                val bmpSuffixCounts = previousCounts
+                val supplementarySuffixCounts = beforePreviousCounts
+                val lengthCounts = Array(dfa.stateCount) { state ->
+                    edges[state].fold(BigInteger.ZERO) { sum, edge ->
+                        val bmpCount = bmpSuffixCounts[edge.target] * edge.bmpSize
+                        val supplementaryCount = supplementarySuffixCounts?.let {
+                            it[edge.target] * edge.supplementarySize
+                        } ?: BigInteger.ZERO
+                        sum + bmpCount + supplementaryCount
+                    }
+                }
+                beforePreviousCounts = previousCounts
+                previousCounts = lengthCounts
+                lengthCounts
+            }
+        }
+        val feasibleLengths = IntArray(maxLength + 2)
+        for (length in counts.indices) {
+            val isFeasible = counts[length][Dfa.START_STATE].signum() > 0
+            feasibleLengths[length + 1] = feasibleLengths[length] + (if (isFeasible) 1 else 0)
+        }
+        return CountTable(counts, feasibleLengths)
+    }
+
+    /**
+     * @return a big integer picked uniformly between 0 (inclusive) and the bound (exclusive)
+     */
+    private fun aBigInteger(forge: Forge, bound: BigInteger): BigInteger {
+        val bitLength = bound.bitLength()
+        while (true) {
+            var value = BigInteger.ZERO
+            var bitCount = 0
+            while (bitCount < bitLength) {
+                value = value.shiftLeft(CHUNK_BITS) or BigInteger.valueOf(forge.anInt(0, CHUNK_SIZE).toLong())
+                bitCount += CHUNK_BITS
+            }
+            value = value.shiftRight(bitCount - bitLength)
+            if (value < bound) return value
+        }
+    }
+
+    // endregion
+
+    /**
+     * The transitions to a target state, split by the number of chars of their code points.
+     */
+    private class Edge(
+        val target: Int,
+        val bmpCodePoints: CharRangeSet,
+        val supplementaryCodePoints: CharRangeSet
+    ) {
+        val bmpSize: BigInteger = BigInteger.valueOf(bmpCodePoints.size.toLong())
+        val supplementarySize: BigInteger = BigInteger.valueOf(supplementaryCodePoints.size.toLong())
+
+        fun codePoints(charCount: Int): CharRangeSet {
+            return if (charCount == 1) bmpCodePoints else supplementaryCodePoints
+        }
+    }
+
+    /**
+     * The counts computed so far, never modified once published.
+     * @param counts counts[length][state] = the number of accepted strings with the given length, from
+     * the state
+     * @param feasibleLengths feasibleLengths[length] = the number of lengths below the given length
+     * with at least one accepted string
+     */
+    private class CountTable(
+        val counts: Array<Array<BigInteger>>,
+        val feasibleLengths: IntArray
+    ) {
+
+        /**
+         * @return the feasible length in the range with the given index (e.g.: 0 for the shortest one)
+         */
+        fun nthFeasibleLength(minLength: Int, maxLength: Int, index: Int): Int {
+            // finds the first length L such that there are index + 1 feasible lengths in minLength..L
+            val target = feasibleLengths[minLength] + index + 1
+            var low = minLength
+            var high = maxLength
+            while (low < high) {
+                val middle = (low + high) ushr 1
+                if (feasibleLengths[middle + 1] >= target) high = middle else low = middle + 1
+            }
+            return low
+        }
+    }
+
+    companion object {
+        /** The maximum length for which the counts are kept between calls. */
+        internal const val MAX_CACHED_LENGTH = 0x100
+
+        private const val CHUNK_BITS = 16
+        private const val CHUNK_SIZE = 1 shl CHUNK_BITS
+    }
+}
@@ -0,0 +1,230 @@
+package fr.xgouchet.elmyr.regex.charset
+
+import fr.xgouchet.elmyr.Forge
+
+/**
+ * An immutable set of code points, stored as a sorted list of disjoint (and non adjacent) ranges.
+ *
+ * The set keeps the cumulative size of its ranges, so that picking a code point uniformly only
+ * requires one random draw and a binary search.
+ */
+internal class CharRangeSet
+private constructor(
+    // bounds of each range, as [start0, end0, start1, end1, …] (inclusive)
+    private val bounds: IntArray
+) {
+
+    // cumulativeSizes[i] = number of code points in the ranges 0..i
+    private val cumulativeSizes = IntArray(bounds.size / 2)
+
+    init {
+        var total = 0
+        for (i in cumulativeSizes.indices) {
+            total += bounds[(2 * i) + 1] - bounds[2 * i] + 1
+            cumulativeSizes[i] = total
+        }
+    }
+
+    /** The number of ranges in this set. */
+    val rangeCount: Int
+        get() = cumulativeSizes.size
+
+    /** The number of code points in this set. */
+    val size: Int
+        get() = if (cumulativeSizes.isEmpty()) 0 else cumulativeSizes.last()
+
+    // region CharRangeSet
+
+    fun isEmpty(): Boolean = cumulativeSizes.isEmpty()
+
+    fun rangeStart(rangeIndex: Int): Int = bounds[2 * rangeIndex]
+
+    fun rangeEnd(rangeIndex: Int): Int = bounds[(2 * rangeIndex) + 1]
+
+    operator fun contains(codePoint: Int): Boolean {
+        return rangeIndexOf(codePoint) >= 0
+    }
+
+    /**
+     * @param index an index in 0 until [size]
+     * @return the code point at the given index, counting in ascending order
+     */
+    fun codePointAt(index: Int): Int {
+        require(index in 0 until size) { "Index $index is out of bounds (size: $size)" }
+
+        // find the first range whose cumulative size is above the index
+        var low = 0
+        var high = cumulativeSizes.lastIndex
+        while (low < high) {
+            val mid = (low + high) ushr 1
+            if (cumulativeSizes[mid] > index) {
+                high = mid
+            } else {
+                low = mid + 1
+            }
+        }
+
+        val offsetInRange = index - (cumulativeSizes[low] - (rangeEnd(low) - rangeStart(low) + 1))
+        return rangeStart(low) + offsetInRange
+    }
+
+    /**
+     * @param forge the forge to use
+     * @return a code point picked uniformly in this set
+     */
+    fun aCodePoint(forge: Forge): Int {
+        check(!isEmpty()) { "Can't pick a character in an empty set" }
+        return codePointAt(forge.anInt(0, size))
+    }
+
+    fun union(other: CharRangeSet): CharRangeSet {
+        if (other.isEmpty()) return this
+        if (isEmpty()) return other
+
+        val builder = Builder()
+        for (i in 0 until rangeCount) builder.addRange(rangeStart(i), rangeEnd(i))
+        for (i in 0 until other.rangeCount) builder.addRange(other.rangeStart(i), other.rangeEnd(i))
+        return builder.build()
+    }
+
+    operator fun minus(other: CharRangeSet): CharRangeSet {
+        if (isEmpty() || other.isEmpty()) return this
+
+        val result = mutableListOf<Int>()
+        var j = 0
+        for (i in 0 until rangeCount) {
+            var start = rangeStart(i)
+            val end = rangeEnd(i)
+
+            // skip the excluded ranges fully before the current one
+            while (j < other.rangeCount && other.rangeEnd(j) < start) j++
+
+            var k = j
+            while (k < other.rangeCount && other.rangeStart(k) <= end && start <= end) {
+                if (other.rangeStart(k) > start) {
+                    result.add(start)
+                    result.add(other.rangeStart(k) - 1)
+                }
+                start = maxOf(start, other.rangeEnd(k) + 1)
+                k++
+            }
+            if (start <= end) {
+                result.add(start)
+                result.add(end)
+            }
+        }
+
+        return CharRangeSet(result.toIntArray())
+    }
+
+    // endregion
+
+    // region Object
+
+    override fun equals(other: Any?): Boolean {
+        return other is CharRangeSet && bounds.contentEquals(other.bounds)
+    }
+
+    override fun hashCode(): Int {
+        return bounds.contentHashCode()
+    }
+
+    override fun toString(): String {
+        return (0 until rangeCount).joinToString(", ", prefix = "CharRangeSet[", postfix = "]") {
+            "${rangeStart(it).toString(HEXA_RADIX)}-${rangeEnd(it).toString(HEXA_RADIX)}"
+        }
+    }
+
+    // endregion
+
+    // region Internal
+
+    private fun rangeIndexOf(codePoint: Int): Int {
+        var low = 0
+        var high = rangeCount - 1
+        while (low <= high) {
+            val mid = (low + high) ushr 1
+            when {
+                codePoint < rangeStart(mid) -> high = mid - 1
+                codePoint > rangeEnd(mid) -> low = mid + 1
+                else -> return mid
+            }
+        }
+        return -1
+    }
+
+    // endregion
+
+    /**
+     * Collects ranges in any order, and builds a [CharRangeSet] with the sorted and merged ranges.
+     */
+    class Builder {
+
+        private val ranges = mutableListOf<IntRange>()
+
+        fun addChar(codePoint: Int): Builder {
+            return addRange(codePoint, codePoint)
+        }
+
+        fun addRange(from: Int, to: Int): Builder {
+            require(from <= to) { "Invalid range $from-$to" }
+            ranges.add(from..to)
+            return this
+        }
+
+        fun addSet(set: CharRangeSet): Builder {
+            for (i in 0 until set.rangeCount) {
+                ranges.add(set.rangeStart(i)..set.rangeEnd(i))
+            }
+            return this
+        }
+
+        fun build(): CharRangeSet {
+            val sorted = ranges.sortedBy { it.first }
+            val merged = mutableListOf<Int>()
+            for (range in sorted) {
+                if (merged.isNotEmpty() && range.first <= merged.last() + 1) {
+                    if (range.last > merged.last()) {
+                        merged[merged.lastIndex] = range.last
+                    }
+                } else {
+                    merged.add(range.first)
+                    merged.add(range.last)
+                }
+            }
+            return CharRangeSet(merged.toIntArray())
+        }
+    }
+
+    companion object {
+
+        private const val HEXA_RADIX = 16
+
+        val EMPTY = CharRangeSet(IntArray(0))
+
+        /**
+         * The characters used by default when forging chars, and as the universe when negating a
+         * character class (all printable characters from the basic multilingual plane, minus those
+         * introducing weird behaviors in the JVM).
+         */
+        val PRINTABLE: CharRangeSet = range(Forge.MIN_PRINTABLE.code, Forge.MAX_UTF8.code - 1) -
+            Builder().apply { Forge.ILLEGAL_UTF8_CHARS.forEach { addChar(it.code) } }.build()
+
+        /** The code points of the basic multilingual plane, written with a single char. */
+        val BMP: CharRangeSet = range(Character.MIN_CODE_POINT, Character.MIN_SUPPLEMENTARY_CODE_POINT - 1)
+
+        /** The supplementary code points, written with two chars (a surrogate pair). */
+        val SUPPLEMENTARY: CharRangeSet = range(Character.MIN_SUPPLEMENTARY_CODE_POINT, Character.MAX_CODE_POINT)
+
+        fun of(vararg chars: Char): CharRangeSet {
+            val builder = Builder()
+            chars.forEach { builder.addChar(it.code) }
+            return builder.build()
+        }
+
+        fun range(from: Int, to: Int): CharRangeSet {
+            require(from <= to) { "Invalid range $from-$to" }
+            return CharRangeSet(intArrayOf(from, to))
+        }
+    }
+}
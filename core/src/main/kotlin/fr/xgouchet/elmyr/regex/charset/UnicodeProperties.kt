@@ -0,0 +1,176 @@
+package fr.xgouchet.elmyr.regex.charset
+
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Resolves the Unicode properties used in regex classes (e.g.: `\p{Lu}`, `\p{IsCyrillic}`,
+ * `\p{InGreek}`, `\p{Alpha}`) into [CharRangeSet], following the names supported by
+ * [java.util.regex.Pattern].
+ *
+ * The code point tables (general categories, scripts and blocks) are computed lazily from the JVM's
+ * own Unicode data, at most once per JVM, with a single pass over all the code points. Each table is
+ * kept as sorted ranges, so picking a code point in a property stays a binary search.
+ */
+internal object UnicodeProperties {
+
+    private val resolvedProperties = ConcurrentHashMap<String, CharRangeSet>()
+
+    private val generalCategories: Map<Int, CharRangeSet> by lazy {
+        partition { Character.getType(it) }
+    }
+
+    private val scripts: Map<Character.UnicodeScript, CharRangeSet> by lazy {
+        partition { Character.UnicodeScript.of(it) }
+    }
+
+    private val blocks: Map<Character.UnicodeBlock, CharRangeSet> by lazy {
+        partition { Character.UnicodeBlock.of(it) }
+    }
+
+    // region UnicodeProperties
+
+    /**
+     * @param name the name of a property, as written between the braces of `\p{…}`
+     * @return the code points having the property
+     * @throws IllegalStateException if the property is unknown
+     */
+    fun charRangeSet(name: String): CharRangeSet {
+        return resolvedProperties.getOrPut(name) {
+            checkNotNull(resolve(name)) { "Unknown unicode property /\\p{$name}/" }
+        }
+    }
+
+    // endregion
+
+    // region Internal
+
+    private fun resolve(name: String): CharRangeSet? {
+        val separatorIndex = name.indexOf('=')
+        if (separatorIndex >= 0) {
+            val value = name.substring(separatorIndex + 1)
+            return when (name.substring(0, separatorIndex).lowercase()) {
+                "sc", "script" -> script(value)
+                "blk", "block" -> block(value)
+                "gc", "general_category" -> generalCategory(value)
+                else -> null
+            }
+        }
+
+        return when {
+            name.startsWith("Is") -> generalCategory(name.substring(2)) ?: script(name.substring(2))
+            name.startsWith("In") -> block(name.substring(2))
+            else -> generalCategory(name) ?: POSIX_CLASSES[name]
+        }
+    }
+
+    private fun generalCategory(name: String): CharRangeSet? {
+        val types = GENERAL_CATEGORIES[name] ?: return null
+        val builder = CharRangeSet.Builder()
+        types.forEach { type -> generalCategories[type]?.let { builder.addSet(it) } }
+        return builder.build()
+    }
+
+    private fun script(name: String): CharRangeSet? {
+        val script = try {
+            Character.UnicodeScript.forName(name)
+        } catch (e: IllegalArgumentException) {
+            return null
+        }
+        return scripts[script] ?: CharRangeSet.EMPTY
+    }
+
+    private fun block(name: String): CharRangeSet? {
+        val block = try {
+            Character.UnicodeBlock.forName(name)
+        } catch (e: IllegalArgumentException) {
+            return null
+        }
+        return blocks[block] ?: CharRangeSet.EMPTY
+    }
+
+    /**
+     * Splits all the code points in ranges with the same key.
+     */
+    private fun <K : Any> partition(keyOf: (Int) -> K?): Map<K, CharRangeSet> {
+        val builders = mutableMapOf<K, CharRangeSet.Builder>()
+        var rangeStart = 0
+        var rangeKey = keyOf(0)
+        for (codePoint in 1..Character.MAX_CODE_POINT + 1) {
+            val key = if (codePoint > Character.MAX_CODE_POINT) null else keyOf(codePoint)
+            if (codePoint > Character.MAX_CODE_POINT || key != rangeKey) {
+                rangeKey?.let {
+                    builders.getOrPut(it) { CharRangeSet.Builder() }.addRange(rangeStart, codePoint - 1)
+                }
+                rangeStart = codePoint
+                rangeKey = key
+            }
+        }
+        return builders.mapValues { (_, builder) -> builder.build() }
+    }
+
+    // endregion
+
+    private val GENERAL_CATEGORIES: Map<String, List<Int>> = mapOf(
+        "Lu" to listOf(Character.UPPERCASE_LETTER.toInt()),
+        "Ll" to listOf(Character.LOWERCASE_LETTER.toInt()),
+        "Lt" to listOf(Character.TITLECASE_LETTER.toInt()),
+        "Lm" to listOf(Character.MODIFIER_LETTER.toInt()),
+        "Lo" to listOf(Character.OTHER_LETTER.toInt()),
+        "Mn" to listOf(Character.NON_SPACING_MARK.toInt()),
+        "Mc" to listOf(Character.COMBINING_SPACING_MARK.toInt()),
+        "Me" to listOf(Character.ENCLOSING_MARK.toInt()),
+        "Nd" to listOf(Character.DECIMAL_DIGIT_NUMBER.toInt()),
+        "Nl" to listOf(Character.LETTER_NUMBER.toInt()),
+        "No" to listOf(Character.OTHER_NUMBER.toInt()),
+        "Pc" to listOf(Character.CONNECTOR_PUNCTUATION.toInt()),
+        "Pd" to listOf(Character.DASH_PUNCTUATION.toInt()),
+        "Ps" to listOf(Character.START_PUNCTUATION.toInt()),
+        "Pe" to listOf(Character.END_PUNCTUATION.toInt()),
+        "Pi" to listOf(Character.INITIAL_QUOTE_PUNCTUATION.toInt()),
+        "Pf" to listOf(Character.FINAL_QUOTE_PUNCTUATION.toInt()),
+        "Po" to listOf(Character.OTHER_PUNCTUATION.toInt()),
+        "Sm" to listOf(Character.MATH_SYMBOL.toInt()),
+        "Sc" to listOf(Character.CURRENCY_SYMBOL.toInt()),
+        "Sk" to listOf(Character.MODIFIER_SYMBOL.toInt()),
+        "So" to listOf(Character.OTHER_SYMBOL.toInt()),
+        "Zs" to listOf(Character.SPACE_SEPARATOR.toInt()),
+        "Zl" to listOf(Character.LINE_SEPARATOR.toInt()),
+        "Zp" to listOf(Character.PARAGRAPH_SEPARATOR.toInt()),
+        "Cc" to listOf(Character.CONTROL.toInt()),
+        "Cf" to listOf(Character.FORMAT.toInt()),
+        "Co" to listOf(Character.PRIVATE_USE.toInt()),
+        "Cs" to listOf(Character.SURROGATE.toInt()),
+        "Cn" to listOf(Character.UNASSIGNED.toInt())
+    ).let { categories ->
+        val groups = categories.keys.groupBy { it.substring(0, 1) }
+            .mapValues { (_, names) -> names.flatMap { categories.getValue(it) } }
+        val casedLetters = listOf("Lu", "Ll", "Lt").flatMap { categories.getValue(it) }
+        categories + groups + ("LC" to casedLetters)
+    }
+
+    private val POSIX_CLASSES: Map<String, CharRangeSet> by lazy {
+        val lower = CharRangeSet.range('a'.code, 'z'.code)
+        val upper = CharRangeSet.range('A'.code, 'Z'.code)
+        val digit = CharRangeSet.range('0'.code, '9'.code)
+        val hexLetters = CharRangeSet.range('a'.code, 'f'.code).union(CharRangeSet.range('A'.code, 'F'.code))
+        val alpha = lower.union(upper)
+        val alnum = alpha.union(digit)
+        val punct = CharRangeSet.of(*"!\"#$%&'()*+,-./:;<=>?@[\\]^_`{|}~".toCharArray())
+        val graph = alnum.union(punct)
+        mapOf(
+            "Lower" to lower,
+            "Upper" to upper,
+            "ASCII" to CharRangeSet.range('\u0000'.code, '\u007F'.code),
+            "Alpha" to alpha,
+            "Digit" to digit,
+            "Alnum" to alnum,
+            "Punct" to punct,
+            "Graph" to graph,
+            "Print" to graph.union(CharRangeSet.of(' ')),
+            "Blank" to CharRangeSet.of(' ', '\t'),
+            "Cntrl" to CharRangeSet.range('\u0000'.code, '\u001F'.code).union(CharRangeSet.of('\u007F')),
+            "XDigit" to digit.union(hexLetters),
+            "Space" to CharRangeSet.of(' ', '\t', '\n', '\u000B', '\u000C', '\r')
+        )
+    }
+}
@@ -0,0 +1,434 @@
+package fr.xgouchet.elmyr.regex.length
+
+import fr.xgouchet.elmyr.Forge
+import fr.xgouchet.elmyr.regex.charset.CharRangeSet
+import fr.xgouchet.elmyr.regex.node.AlternationNode
+import fr.xgouchet.elmyr.regex.node.BackReferenceNode
+import fr.xgouchet.elmyr.regex.node.CharacterSetNode
+import fr.xgouchet.elmyr.regex.node.Node
+import fr.xgouchet.elmyr.regex.node.ParentNode
+import fr.xgouchet.elmyr.regex.node.QuantifiedNode
+import fr.xgouchet.elmyr.regex.quantifier.Quantifier
+import java.util.IdentityHashMap
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Generates strings matching a parsed regex, with a length within a given range.
+ *
+ * The generator first computes the set of lengths each node can produce (up to [maxLength]).
+ * Generating a string then means picking a feasible length for the whole regex, and splitting it
+ * between the nodes while staying in their feasible sets, so that the result is guaranteed to fit
+ * without any retry. Unlike the default generation, unbounded quantifiers (e.g.: `*`, `+`) can repeat
+ * as much as needed to reach the length.
+ *
+ * The analysis is valid for any length up to [maxLength], so a generator can be kept and reused to
+ * generate strings with a smaller maximum length (the generated strings don't depend on the analyzed
+ * [maxLength]). Once built, the generator can be shared between threads.
+ *
+ * Both the analysis and the generation use an explicit stack, to support deeply nested regexes.
+ * Back references are not supported.
+ */
+internal class LengthConstrainedGenerator(
+    private val rootNode: Node,
+    internal val maxLength: Int
+) {
+
+    private val nodeLengths = IdentityHashMap<Node, LengthSet>()
+    private val sequenceSuffixes = IdentityHashMap<Node, Array<Suffix>>()
+    private val repetitions = IdentityHashMap<QuantifiedNode, Repetition>()
+    private val literalAlternatives = IdentityHashMap<AlternationNode, Map<Int, List<String>>>()
+
+    init {
+        require(maxLength >= 0) { "The maximum length ($maxLength) must be a positive (or null) value" }
+        analyze()
+    }
+
+    // region LengthConstrainedGenerator
+
+    /**
+     * Generates a string and appends it to the given builder.
+     * @param forge the forge to use
+     * @param minLength the minimum length of the generated string
+     * @param maxLength the maximum length of the generated string (up to the analyzed maximum length)
+     * @param builder the builder to append the generated string to
+     */
+    fun generate(forge: Forge, minLength: Int, maxLength: Int, builder: StringBuilder) {
+        require(maxLength <= this.maxLength) {
+            "The maximum length ($maxLength) must be less than (or equal to) the analyzed one (${this.maxLength})"
+        }
+        val rootLengths = lengthsOf(rootNode)
+        val length = pickLength(forge, rootLengths, minLength, maxLength) { true }
+        require(length >= 0) {
+            "Unable to forge a string matching ${rootNode.toRegex()} " +
+                "with a length between $minLength and $maxLength"
+        }
+        Generation(forge, builder).run(rootNode, length)
+    }
+
+    // endregion
+
+    // region Analysis
+
+    private fun analyze() {
+        // post order traversal: a node's lengths are computed once all its children's are known
+        val pendingNodes = ArrayDeque<Pair<Node, Boolean>>()
+        pendingNodes.addLast(rootNode to false)
+        while (pendingNodes.isNotEmpty()) {
+            val (node, childrenAnalyzed) = pendingNodes.removeLast()
+            if (nodeLengths.containsKey(node)) continue
+
+            if (childrenAnalyzed) {
+                nodeLengths[node] = computeLengths(node)
+            } else {
+                pendingNodes.addLast(node to true)
+                childrenOf(node).forEach { pendingNodes.addLast(it to false) }
+            }
+        }
+    }
+
+    private fun computeLengths(node: Node): LengthSet {
+        return when (node) {
+            is CharacterSetNode -> charLengths(node.charRangeSet)
+            is QuantifiedNode -> Repetition(lengthsOf(node.node), node.quantifier)
+                .also { repetitions[node] = it }
+                .lengths
+            is AlternationNode -> computeAlternationLengths(node)
+            is BackReferenceNode -> throw IllegalStateException(
+                "Back references (/${node.toRegex()}/) are not supported when constraining the length"
+            )
+            is ParentNode -> computeSequenceLengths(node)
+            else -> throw IllegalStateException("Unable to analyze node $node")
+        }
+    }
+
+    private fun computeAlternationLengths(node: AlternationNode): LengthSet {
+        val lengths = LengthSet(maxLength)
+        val literals = node.literalAlternatives
+        if (literals == null) {
+            node.getChildNodes().forEach { lengths.addAll(lengthsOf(it)) }
+        } else {
+            // literal alternatives are grouped by length instead of being analyzed one by one
+            val literalsByLength = literals.filter { it.length <= maxLength }.groupBy { it.length }
+            literalsByLength.keys.forEach { lengths.add(it) }
+            literalAlternatives[node] = literalsByLength
+        }
+        return lengths
+    }
+
+    private fun charLengths(charRangeSet: CharRangeSet): LengthSet {
+        val lengths = LengthSet(maxLength)
+        if (charRangeSet.rangeStart(0) < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+            lengths.add(1)
+        }
+        if (charRangeSet.rangeEnd(charRangeSet.rangeCount - 1) >= Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+            lengths.add(2)
+        }
+        return lengths
+    }
+
+    private fun computeSequenceLengths(node: ParentNode): LengthSet {
+        val children = node.getChildNodes()
+
+        // suffixes[i] holds the lengths of the children i..n, children with a single possible length
+        // only shift the following suffix, to avoid keeping a set for each char of long literals
+        val suffixes = arrayOfNulls<Suffix>(children.size + 1)
+        var suffix = Suffix(LengthSet.of(maxLength, 0), 0)
+        suffixes[children.size] = suffix
+        for (i in children.indices.reversed()) {
+            val childLengths = lengthsOf(children[i])
+            val singleLength = childLengths.singleLength()
+            suffix = if (singleLength >= 0) {
+                Suffix(suffix.lengths, suffix.offset + singleLength)
+            } else {
+                val lengths = LengthSet(maxLength)
+                forEachLength(childLengths, maxLength) { lengths.addAll(suffix.lengths, it + suffix.offset) }
+                Suffix(lengths, 0)
+            }
+            suffixes[i] = suffix
+        }
+        sequenceSuffixes[node] = suffixes.requireNoNulls()
+
+        return LengthSet(maxLength).apply { addAll(suffix.lengths, suffix.offset) }
+    }
+
+    private fun lengthsOf(node: Node): LengthSet {
+        return checkNotNull(nodeLengths[node]) { "Node $node was not analyzed" }
+    }
+
+    // endregion
+
+    // region Internal
+
+    private fun childrenOf(node: Node): List<Node> {
+        return when (node) {
+            is QuantifiedNode -> listOf(node.node)
+            is AlternationNode -> if (node.literalAlternatives == null) node.getChildNodes() else emptyList()
+            is ParentNode -> node.getChildNodes()
+            else -> emptyList()
+        }
+    }
+
+    private inline fun forEachLength(lengths: LengthSet, upTo: Int, action: (Int) -> Unit) {
+        var length = lengths.nextLength(0)
+        while (length in 0..upTo) {
+            action(length)
+            length = lengths.nextLength(length + 1)
+        }
+    }
+
+    /**
+     * Picks uniformly a length in the given set and range, matching the given predicate.
+     * @return the picked length, or -1 if no length is acceptable
+     */
+    private inline fun pickLength(
+        forge: Forge,
+        lengths: LengthSet,
+        from: Int,
+        to: Int,
+        accept: (Int) -> Boolean
+    ): Int {
+        var count = 0
+        var length = lengths.nextLength(from)
+        while (length in 0..to) {
+            if (accept(length)) count++
+            length = lengths.nextLength(length + 1)
+        }
+        if (count == 0) return -1
+
+        var index = forge.anInt(0, count)
+        length = lengths.nextLength(from)
+        while (true) {
+            if (accept(length)) {
+                if (index == 0) return length
+                index--
+            }
+            length = lengths.nextLength(length + 1)
+        }
+    }
+
+    // endregion
+
+    /**
+     * The lengths of a sequence's suffix: the lengths in the set increased by the offset.
+     */
+    private class Suffix(
+        val lengths: LengthSet,
+        val offset: Int
+    ) {
+        operator fun contains(length: Int): Boolean = (length - offset) in lengths
+    }
+
+    /**
+     * The lengths of a quantified node, split in a mandatory part (the minimum quantity of
+     * repetitions) and an optional tail.
+     *
+     * The lengths of `n` repetitions are computed by halving `n`, which only requires to keep
+     * a logarithmic number of sets.
+     */
+    private inner class Repetition(
+        val bodyLengths: LengthSet,
+        quantifier: Quantifier
+    ) {
+        val mandatoryCount = quantifier.minQuantity
+        val optionalCount = if (quantifier.maxQuantity == Quantifier.UNBOUNDED) {
+            Quantifier.UNBOUNDED
+        } else {
+            quantifier.maxQuantity - quantifier.minQuantity
+        }
+
+        private val optionalBodyLengths = LengthSet(maxLength).apply {
+            addAll(bodyLengths)
+            add(0)
+        }
+        // some powers are only computed while generating, possibly from several threads
+        private val mandatoryPowers = ConcurrentHashMap<Int, LengthSet>()
+        private val optionalPowers = ConcurrentHashMap<Int, LengthSet>()
+
+        val mandatoryLengths = mandatoryLengths(mandatoryCount)
+        val tailLengths = if (optionalCount == Quantifier.UNBOUNDED) {
+            starLengths()
+        } else {
+            optionalLengths(optionalCount)
+        }
+        val lengths = mandatoryLengths + tailLengths
+
+        fun mandatoryLengths(count: Int): LengthSet {
+            return power(bodyLengths, mandatoryPowers, count)
+        }
+
+        fun optionalLengths(count: Int): LengthSet {
+            return power(optionalBodyLengths, optionalPowers, count)
+        }
+
+        private fun power(base: LengthSet, powers: MutableMap<Int, LengthSet>, count: Int): LengthSet {
+            return when (count) {
+                0 -> LengthSet.of(maxLength, 0)
+                1 -> base
+                else -> powers.getOrPut(count) {
+                    val half = count / 2
+                    power(base, powers, half) + power(base, powers, count - half)
+                }
+            }
+        }
+
+        private fun starLengths(): LengthSet {
+            val lengths = LengthSet.of(maxLength, 0)
+            for (total in 1..maxLength) {
+                var length = bodyLengths.nextLength(1)
+                while (length in 1..total) {
+                    if ((total - length) in lengths) {
+                        lengths.add(total)
+                        break
+                    }
+                    length = bodyLengths.nextLength(length + 1)
+                }
+            }
+            return lengths
+        }
+    }
+
+    /**
+     * The state of a single generation.
+     */
+    private inner class Generation(
+        private val forge: Forge,
+        private val builder: StringBuilder
+    ) {
+
+        // tasks left to run, in reverse order
+        private val pendingTasks = ArrayDeque<() -> Unit>()
+
+        fun run(node: Node, length: Int) {
+            pendingTasks.addLast { generate(node, length) }
+            while (pendingTasks.isNotEmpty()) {
+                pendingTasks.removeLast().invoke()
+            }
+        }
+
+        private fun generate(node: Node, length: Int) {
+            when (node) {
+                is CharacterSetNode -> builder.appendCodePoint(aCodePoint(node.charRangeSet, length))
+                is QuantifiedNode -> generateRepetition(node, length)
+                is AlternationNode -> generateAlternation(node, length)
+                is ParentNode -> generateSequence(node, length)
+                else -> throw IllegalStateException("Unable to generate node $node")
+            }
+        }
+
+        private fun generateAlternation(node: AlternationNode, length: Int) {
+            val literalsByLength = literalAlternatives[node]
+            if (literalsByLength == null) {
+                val alternatives = node.getChildNodes().filter { length in lengthsOf(it) }
+                val alternative = forge.anElementFrom(alternatives)
+                pendingTasks.addLast { generate(alternative, length) }
+            } else {
+                val literals = checkNotNull(literalsByLength[length]) { "Unable to pick length $length in $node" }
+                builder.append(forge.anElementFrom(literals))
+            }
+        }
+
+        private fun aCodePoint(charRangeSet: CharRangeSet, length: Int): Int {
+            val candidates = when {
+                length == 1 && charLengths(charRangeSet).singleLength() == 1 -> charRangeSet
+                length == 1 -> charRangeSet - CharRangeSet.SUPPLEMENTARY
+                else -> charRangeSet - CharRangeSet.BMP
+            }
+            return candidates.aCodePoint(forge)
+        }
+
+        private fun generateSequence(node: ParentNode, length: Int) {
+            val children = node.getChildNodes()
+            val suffixes = checkNotNull(sequenceSuffixes[node]) { "Node $node was not analyzed" }
+            val tasks = mutableListOf<() -> Unit>()
+
+            var remaining = length
+            children.forEachIndexed { i, child ->
+                val childLength = pickLength(forge, lengthsOf(child), 0, remaining) {
+                    (remaining - it) in suffixes[i + 1]
+                }
+                check(childLength >= 0) { "Unable to split length $length in $node" }
+                tasks.add { generate(child, childLength) }
+                remaining -= childLength
+            }
+
+            schedule(tasks)
+        }
+
+        private fun generateRepetition(node: QuantifiedNode, length: Int) {
+            val repetition = checkNotNull(repetitions[node]) { "Node $node was not analyzed" }
+            val mandatoryLength = pickLength(forge, repetition.mandatoryLengths, 0, length) {
+                (length - it) in repetition.tailLengths
+            }
+            check(mandatoryLength >= 0) { "Unable to split length $length in $node" }
+            val tailLength = length - mandatoryLength
+
+            val tasks = mutableListOf<() -> Unit>()
+            tasks.add {
+                generateRepetitions(node.node, repetition.mandatoryCount, mandatoryLength, false) {
+                    repetition.mandatoryLengths(it)
+                }
+            }
+            if (repetition.optionalCount == Quantifier.UNBOUNDED) {
+                tasks.add { generateUnboundedRepetitions(node.node, repetition, tailLength) }
+            } else {
+                tasks.add {
+                    generateRepetitions(node.node, repetition.optionalCount, tailLength, true) {
+                        repetition.optionalLengths(it)
+                    }
+                }
+            }
+            schedule(tasks)
+        }
+
+        private fun generateRepetitions(
+            body: Node,
+            count: Int,
+            length: Int,
+            isOptional: Boolean,
+            powerLengths: (Int) -> LengthSet
+        ) {
+            when {
+                count == 0 -> check(length == 0) { "Unable to repeat $body with length $length" }
+                isOptional && length == 0 -> Unit
+                count == 1 -> if (length > 0 || !isOptional) {
+                    pendingTasks.addLast { generate(body, length) }
+                }
+                else -> {
+                    val firstCount = count / 2
+                    val secondCount = count - firstCount
+                    val secondLengths = powerLengths(secondCount)
+                    val firstLength = pickLength(forge, powerLengths(firstCount), 0, length) {
+                        (length - it) in secondLengths
+                    }
+                    check(firstLength >= 0) { "Unable to repeat $body with length $length" }
+                    schedule(
+                        listOf(
+                            { generateRepetitions(body, firstCount, firstLength, isOptional, powerLengths) },
+                            { generateRepetitions(body, secondCount, length - firstLength, isOptional, powerLengths) }
+                        )
+                    )
+                }
+            }
+        }
+
+        private fun generateUnboundedRepetitions(body: Node, repetition: Repetition, length: Int) {
+            val tasks = mutableListOf<() -> Unit>()
+            var remaining = length
+            while (remaining > 0) {
+                val iterationLength = pickLength(forge, repetition.bodyLengths, 1, remaining) {
+                    (remaining - it) in repetition.tailLengths
+                }
+                check(iterationLength > 0) { "Unable to repeat $body with length $length" }
+                tasks.add { generate(body, iterationLength) }
+                remaining -= iterationLength
+            }
+            schedule(tasks)
+        }
+
+        private fun schedule(tasks: List<() -> Unit>) {
+            for (i in tasks.indices.reversed()) {
+                pendingTasks.addLast(tasks[i])
+            }
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package fr.xgouchet.elmyr.regex.length
+
+/**
+ * A mutable set of lengths, between 0 and [maxLength] (inclusive), stored as a bit field.
+ *
+ * Lengths added above [maxLength] are silently ignored, which lets the set describe all the lengths a
+ * regex (or part of it) can match within a length budget.
+ */
+internal class LengthSet(
+    val maxLength: Int
+) {
+
+    private val words = LongArray((maxLength ushr WORD_SHIFT) + 1)
+
+    // region LengthSet
+
+    operator fun contains(length: Int): Boolean {
+        return length in 0..maxLength && (words[length ushr WORD_SHIFT] and (1L shl length)) != 0L
+    }
+
+    fun add(length: Int) {
+        if (length in 0..maxLength) {
+            words[length ushr WORD_SHIFT] = words[length ushr WORD_SHIFT] or (1L shl length)
+        }
+    }
+
+    fun isEmpty(): Boolean {
+        return words.all { it == 0L }
+    }
+
+    fun size(): Int {
+        return words.sumOf { java.lang.Long.bitCount(it) }
+    }
+
+    /**
+     * @param from the minimum length to look for
+     * @return the smallest length in this set greater than or equal to [from], or -1 if there is none
+     */
+    fun nextLength(from: Int): Int {
+        if (from > maxLength) return -1
+        var wordIndex = maxOf(from, 0) ushr WORD_SHIFT
+        var word = words[wordIndex] and (-1L shl maxOf(from, 0))
+        while (true) {
+            if (word != 0L) {
+                return (wordIndex shl WORD_SHIFT) + java.lang.Long.numberOfTrailingZeros(word)
+            }
+            wordIndex++
+            if (wordIndex >= words.size) return -1
+            word = words[wordIndex]
+        }
+    }
+
+    /**
+     * @return the only length in this set, or -1 if the set is empty or contains several lengths
+     */
+    fun singleLength(): Int {
+        val first = nextLength(0)
+        return if (first >= 0 && nextLength(first + 1) < 0) first else -1
+    }
+
+    /**
+     * Adds all the lengths of another set, each increased by the given offset.
+     * @param other a set with the same [maxLength]
+     * @param offset the (positive) offset to add to the other set's lengths
+     */
+    fun addAll(other: LengthSet, offset: Int = 0) {
+        require(other.maxLength == maxLength) { "Can't combine sets with different max lengths" }
+        require(offset >= 0) { "Invalid negative offset $offset" }
+        if (offset > maxLength) return
+
+        val wordOffset = offset ushr WORD_SHIFT
+        val bitOffset = offset and WORD_MASK
+        for (i in words.lastIndex downTo wordOffset) {
+            val source = i - wordOffset
+            var shifted = other.words[source] shl bitOffset
+            if (bitOffset != 0 && source > 0) {
+                shifted = shifted or (other.words[source - 1] ushr (Long.SIZE_BITS - bitOffset))
+            }
+            words[i] = words[i] or shifted
+        }
+        clearAboveMaxLength()
+    }
+
+    /**
+     * @param other a set with the same [maxLength]
+     * @return the set of all the sums of a length from this set and a length from the other set
+     */
+    operator fun plus(other: LengthSet): LengthSet {
+        // iterate over the smallest set, and shift the largest one
+        val (iterated, shifted) = if (size() <= other.size()) this to other else other to this
+        val result = LengthSet(maxLength)
+        var length = iterated.nextLength(0)
+        while (length >= 0) {
+            result.addAll(shifted, length)
+            length = iterated.nextLength(length + 1)
+        }
+        return result
+    }
+
+    // endregion
+
+    // region Object
+
+    override fun equals(other: Any?): Boolean {
+        return other is LengthSet && maxLength == other.maxLength && words.contentEquals(other.words)
+    }
+
+    override fun hashCode(): Int {
+        return words.contentHashCode()
+    }
+
+    override fun toString(): String {
+        val lengths = mutableListOf<Int>()
+        var length = nextLength(0)
+        while (length >= 0) {
+            lengths.add(length)
+            length = nextLength(length + 1)
+        }
+        return lengths.joinToString(",", prefix = "LengthSet{", postfix = "}")
+    }
+
+    // endregion
+
+    // region Internal
+
+    private fun clearAboveMaxLength() {
+        val usedBits = (maxLength + 1) and WORD_MASK
+        if (usedBits != 0) {
+            words[words.lastIndex] = words[words.lastIndex] and ((1L shl usedBits) - 1)
+        }
+    }
+
+    // endregion
+
+    companion object {
+        private const val WORD_SHIFT = 6
+        private const val WORD_MASK = 0x3F
+
+        fun of(maxLength: Int, vararg lengths: Int): LengthSet {
+            val set = LengthSet(maxLength)
+            lengths.forEach { set.add(it) }
+            return set
+        }
+    }
+}
@@ -1,23 +1,40 @@
 package fr.xgouchet.elmyr.regex.node
 
-import fr.xgouchet.elmyr.Forge
-
 /**
  * Describe an alternation, that is a choice between two patterns.
  * e.g.: ```/foo|bar/```
  */
 internal class AlternationNode : BaseParentNode() {
 
-    // region Node
+    /**
+     * The alternatives as plain strings, when they are all made of raw characters only (e.g.:
+     * ```/GET|POST|PUT/```), or null otherwise. Only available once the regex is fully parsed.
+     */
+    val literalAlternatives: Array<String>? by lazy { computeLiteralAlternatives() }
 
-    override fun build(forge: Forge, builder: StringBuilder) {
-        val child = forge.anElementFrom(children)
-        child.build(forge, builder)
-    }
+    // region Node
 
     override fun toRegex(): String {
         return children.joinToString("|") { it.toRegex() }
     }
 
     // endregion
+
+    // region Internal
+
+    private fun computeLiteralAlternatives(): Array<String>? {
+        val literals = arrayOfNulls<String>(children.size)
+        children.forEachIndexed { index, child ->
+            if (child !is SequenceNode) return null
+            val literal = StringBuilder()
+            child.getChildNodes().forEach {
+                if (it !is RawCharNode) return null
+                literal.append(it.rawChar)
+            }
+            literals[index] = literal.toString()
+        }
+        return literals.requireNoNulls()
+    }
+
+    // endregion
 }
@@ -1,7 +1,5 @@
 package fr.xgouchet.elmyr.regex.node
 
-import fr.xgouchet.elmyr.Forge
-
 /**
  * Describe a back reference to a previously captured group.
  * e.g.: ```/(a*)bc\1/```
@@ -11,8 +9,6 @@ internal class BackReferenceNode(
     private val parentNode: ParentNode
 ) : ChildNode {
 
-    internal lateinit var referencedGroup: GroupNode
-
     // region ChildNode
 
     override fun getParent(): ParentNode = parentNode
@@ -21,10 +17,6 @@ internal class BackReferenceNode(
 
     // region Node
 
-    override fun build(forge: Forge, builder: StringBuilder) {
-        builder.append(referencedGroup.referenceValue)
-    }
-
     override fun toRegex(): String {
         return "\\$groupReference"
     }
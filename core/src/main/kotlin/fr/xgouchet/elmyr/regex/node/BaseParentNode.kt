@@ -11,21 +11,34 @@ internal abstract class BaseParentNode : ParentNode {
     }
 
     override fun remove(node: Node) {
-        children.remove(node)
+        // nodes are usually removed right after being added, look for them from the end
+        val index = children.indexOfLast { it === node }
+        if (index >= 0) children.removeAt(index)
     }
 
     override fun isEmpty(): Boolean {
         return children.isEmpty()
     }
 
+    override fun getChildNodes(): List<Node> = children
+
     override fun flattenHierarchy(): List<Node> {
         val list = mutableListOf<Node>()
-        list.add(this)
-        children.forEach {
-            if (it is ParentNode) {
-                it.flattenHierarchy().forEach { node -> list.add(node) }
-            } else {
-                list.add(it)
+
+        // pre order traversal, without recursion to support deeply nested regexes
+        val pendingNodes = ArrayDeque<Node>()
+        pendingNodes.addLast(this)
+        while (pendingNodes.isNotEmpty()) {
+            val node = pendingNodes.removeLast()
+            list.add(node)
+            when (node) {
+                is QuantifiedNode -> pendingNodes.addLast(node.node)
+                is ParentNode -> {
+                    val childNodes = node.getChildNodes()
+                    for (i in childNodes.indices.reversed()) {
+                        pendingNodes.addLast(childNodes[i])
+                    }
+                }
             }
         }
         return list
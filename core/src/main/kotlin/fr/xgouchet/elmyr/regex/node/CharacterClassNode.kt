@@ -1,6 +1,6 @@
 package fr.xgouchet.elmyr.regex.node
 
-import fr.xgouchet.elmyr.Forge
+import fr.xgouchet.elmyr.regex.charset.CharRangeSet
 
 /**
  * Describes a character class.
@@ -8,11 +8,13 @@ import fr.xgouchet.elmyr.Forge
  */
 internal class CharacterClassNode(
     internal val isNegation: Boolean
-) : BaseParentNode() {
+) : BaseParentNode(), CharacterSetNode {
 
     private var isClosed: Boolean = false
 
-    private var negatedPattern: String = ""
+    // all the characters matched by this class, computed once when the class is closed
+    override var charRangeSet: CharRangeSet = CharRangeSet.EMPTY
+        private set
 
     // region CharacterClassNode
 
@@ -23,21 +25,17 @@ internal class CharacterClassNode(
     fun close() {
         check(children.isNotEmpty()) { "Character class is empty" }
 
-        if (isNegation) {
-            val builder = StringBuilder()
-            builder.append('[')
-            children.forEach {
-                val repr = when (it) {
-                    is RawCharNode -> it.escapedChar
-                    is CharacterRangeNode -> "${it.from.escapedChar}-${it.to.escapedChar}"
-                    is PredefinedCharacterClassNode -> "\\${it.shortcut}"
-                    else -> TODO("Can't handle $it")
-                }
-                builder.append(repr)
-            }
-            builder.append(']')
-            negatedPattern = builder.toString()
+        val builder = CharRangeSet.Builder()
+        children.forEach {
+            check(it is CharacterSetNode) { "Can't handle $it in a character class" }
+            builder.addSet(it.charRangeSet)
         }
+        charRangeSet = if (isNegation) {
+            CharRangeSet.PRINTABLE - builder.build()
+        } else {
+            builder.build()
+        }
+        check(!charRangeSet.isEmpty()) { "Character class ${toRegex()} doesn't match any character" }
 
         isClosed = true
     }
@@ -46,19 +44,6 @@ internal class CharacterClassNode(
 
     // region Node
 
-    override fun build(forge: Forge, builder: StringBuilder) {
-        if (isNegation) {
-            var char: Char
-            do {
-                char = forge.aChar()
-            } while (Regex("[$negatedPattern]").matches("$char"))
-            builder.append(char)
-        } else {
-            val child = forge.anElementFrom(children)
-            child.build(forge, builder)
-        }
-    }
-
     override fun toRegex(): String {
         val prefix = if (isNegation) "[^" else "["
         return children.joinToString("", prefix = prefix, postfix = "]") { it.toRegex() }
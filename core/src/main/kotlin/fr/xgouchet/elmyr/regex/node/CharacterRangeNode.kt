@@ -1,6 +1,6 @@
 package fr.xgouchet.elmyr.regex.node
 
-import fr.xgouchet.elmyr.Forge
+import fr.xgouchet.elmyr.regex.charset.CharRangeSet
 
 /**
  * Describes a character range.
@@ -9,14 +9,15 @@ import fr.xgouchet.elmyr.Forge
 internal class CharacterRangeNode(
     internal val from: RawCharNode,
     internal val to: RawCharNode
-) : Node {
+) : CharacterSetNode {
 
-    // region Node
+    // region CharacterSetNode
 
-    override fun build(forge: Forge, builder: StringBuilder) {
+    override val charRangeSet: CharRangeSet = CharRangeSet.range(from.rawChar.code, to.rawChar.code)
 
-        builder.append(forge.aChar(from.rawChar, to.rawChar))
-    }
+    // endregion
+
+    // region Node
 
     override fun toRegex(): String {
         return "${from.toRegex()}-${to.toRegex()}"
@@ -0,0 +1,11 @@
+package fr.xgouchet.elmyr.regex.node
+
+import fr.xgouchet.elmyr.regex.charset.CharRangeSet
+
+/**
+ * Describes a node matching a single character, among a known set of characters.
+ */
+internal interface CharacterSetNode : Node {
+
+    val charRangeSet: CharRangeSet
+}
@@ -5,13 +5,12 @@ internal interface ChildNode : Node {
     fun getParent(): ParentNode
 
     fun isDescendantOf(node: ParentNode): Boolean {
-        val parent = getParent()
-        return if (this == node || parent == node) {
-            true
-        } else if (parent is ChildNode) {
-            parent.isDescendantOf(node)
-        } else {
-            false
+        if (this == node) return true
+
+        var parent: ParentNode = getParent()
+        while (parent != node) {
+            parent = (parent as? ChildNode)?.getParent() ?: return false
         }
+        return true
     }
 }
@@ -1,18 +1,21 @@
 package fr.xgouchet.elmyr.regex.node
 
-import fr.xgouchet.elmyr.Forge
+import fr.xgouchet.elmyr.regex.charset.CharRangeSet
 
 /**
  * Describe a dot character used as a wildcard.
  * e.g.: ```/foo./```
  */
-internal class DotMetacharacterNode : Node {
+internal class DotMetacharacterNode : CharacterSetNode {
 
-    // region Node
+    // region CharacterSetNode
 
-    override fun build(forge: Forge, builder: StringBuilder) {
-        builder.append(forge.aChar())
-    }
+    override val charRangeSet: CharRangeSet
+        get() = CharRangeSet.PRINTABLE
+
+    // endregion
+
+    // region Node
 
     override fun toRegex(): String {
         return "."
@@ -1,7 +1,5 @@
 package fr.xgouchet.elmyr.regex.node
 
-import fr.xgouchet.elmyr.Forge
-
 /**
  * Describes a capturing group.
  * e.g.: ```/ab(c*)/```
@@ -10,9 +8,6 @@ internal class GroupNode(
     private val parentNode: ParentNode
 ) : BaseParentNode(), ChildNode {
 
-    internal var referenceValue: String = ""
-        private set
-
     // region ChildNode
 
     override fun getParent(): ParentNode = parentNode
@@ -21,13 +16,6 @@ internal class GroupNode(
 
     // region Node
 
-    override fun build(forge: Forge, builder: StringBuilder) {
-        val localBuilder = StringBuilder()
-        children.first().build(forge, localBuilder)
-        referenceValue = localBuilder.toString()
-        builder.append(localBuilder.toString())
-    }
-
     override fun toRegex(): String {
         return children.joinToString("", prefix = "(", postfix = ")") { it.toRegex() }
     }
@@ -9,5 +9,7 @@ internal interface ParentNode :
 
     fun isEmpty(): Boolean
 
+    fun getChildNodes(): List<Node>
+
     fun flattenHierarchy(): List<Node>
 }
@@ -1,19 +1,20 @@
 package fr.xgouchet.elmyr.regex.node
 
-import fr.xgouchet.elmyr.Forge
+import fr.xgouchet.elmyr.regex.charset.CharRangeSet
+import fr.xgouchet.elmyr.regex.charset.UnicodeProperties
 
+/**
+ * Describes a predefined character class.
+ * e.g.: ```/\d\w\s\p{Lu}/```
+ */
 internal class PredefinedCharacterClassNode
 private constructor(
     internal val shortcut: String,
-    private val forging: Forge.() -> Char
-) : Node {
+    override val charRangeSet: CharRangeSet
+) : CharacterSetNode {
 
     // region Node
 
-    override fun build(forge: Forge, builder: StringBuilder) {
-        builder.append(forge.forging())
-    }
-
     override fun toRegex(): String {
         return shortcut
     }
@@ -30,42 +31,44 @@ private constructor(
 
     companion object {
 
-        fun digit() = PredefinedCharacterClassNode("\\d") {
-            aNumericalChar()
-        }
+        private val DIGIT = CharRangeSet.range('0'.code, '9'.code)
 
-        fun notDigit() = PredefinedCharacterClassNode("\\D") {
-            anElementFrom(
-                aChar(min = Forge.MIN_PRINTABLE, max = '0'),
-                aChar(min = ':', max = Forge.MAX_UTF8)
-            )
-        }
+        private val WORD = CharRangeSet.Builder()
+            .addRange('a'.code, 'z'.code)
+            .addRange('A'.code, 'Z'.code)
+            .addRange('0'.code, '9'.code)
+            .addChar('_'.code)
+            .build()
 
-        fun word() = PredefinedCharacterClassNode("\\w") {
-            anElementFrom(
-                aChar('a', 'z'),
-                aChar('A', 'Z'),
-                aChar('0', '9'),
-                '_'
-            )
-        }
+        private val WHITESPACE = CharRangeSet.of('\u0009', '\u000A', '\u000B', '\u000C', '\u000D', ' ')
 
-        fun notWord() = PredefinedCharacterClassNode("\\W") {
-            anElementFrom(
-                aChar(min = Forge.MIN_PRINTABLE, max = '0'),
-                aChar(min = ':', max = 'A'),
-                aChar(min = '[', max = '_'),
-                '`',
-                aChar(min = '{', max = Forge.MAX_UTF8)
-            )
-        }
+        private val NOT_DIGIT = CharRangeSet.PRINTABLE - DIGIT
+        private val NOT_WORD = CharRangeSet.PRINTABLE - WORD
+        private val NOT_WHITESPACE = CharRangeSet.PRINTABLE - WHITESPACE
 
-        fun whitespace() = PredefinedCharacterClassNode("\\s") {
-            aWhitespaceChar()
-        }
+        fun digit() = PredefinedCharacterClassNode("\\d", DIGIT)
+
+        fun notDigit() = PredefinedCharacterClassNode("\\D", NOT_DIGIT)
+
+        fun word() = PredefinedCharacterClassNode("\\w", WORD)
+
+        fun notWord() = PredefinedCharacterClassNode("\\W", NOT_WORD)
+
+        fun whitespace() = PredefinedCharacterClassNode("\\s", WHITESPACE)
+
+        fun notWhitespace() = PredefinedCharacterClassNode("\\S", NOT_WHITESPACE)
 
-        fun notWhitespace() = PredefinedCharacterClassNode("\\S") {
-            aChar(min = '\u0021', max = Forge.MAX_UTF8)
+        /**
+         * @param shortcut the property as written in the regex (e.g.: `\p{Lu}`, `\pL`)
+         * @param name the name of the property (e.g.: `Lu`, `IsCyrillic`)
+         * @param isNegation whether the class matches the characters without the property (as with
+         * `\P{…}`), among the printable characters
+         */
+        fun unicodeProperty(shortcut: String, name: String, isNegation: Boolean): PredefinedCharacterClassNode {
+            val propertySet = UnicodeProperties.charRangeSet(name)
+            val charRangeSet = if (isNegation) CharRangeSet.PRINTABLE - propertySet else propertySet
+            check(!charRangeSet.isEmpty()) { "Unicode property $shortcut doesn't match any character" }
+            return PredefinedCharacterClassNode(shortcut, charRangeSet)
         }
     }
 }
@@ -1,6 +1,5 @@
 package fr.xgouchet.elmyr.regex.node
 
-import fr.xgouchet.elmyr.Forge
 import fr.xgouchet.elmyr.regex.quantifier.Quantifier
 
 /**
@@ -8,20 +7,12 @@ import fr.xgouchet.elmyr.regex.quantifier.Quantifier
  * e.g.: ```/a+b*c?/```
  */
 internal class QuantifiedNode(
-    private val node: Node,
-    private val quantifier: Quantifier
+    internal val node: Node,
+    internal val quantifier: Quantifier
 ) : Node {
 
     // region Node
 
-    override fun build(forge: Forge, builder: StringBuilder) {
-        val repeats = quantifier.getQuantity(forge)
-
-        repeat(repeats) {
-            node.build(forge, builder)
-        }
-    }
-
     override fun toRegex(): String {
         return "${node.toRegex()}$quantifier"
     }
@@ -1,6 +1,6 @@
 package fr.xgouchet.elmyr.regex.node
 
-import fr.xgouchet.elmyr.Forge
+import fr.xgouchet.elmyr.regex.charset.CharRangeSet
 
 /**
  * Describes a raw character that doesn't have any specific meaning.
@@ -9,13 +9,16 @@ import fr.xgouchet.elmyr.Forge
 internal class RawCharNode(
     internal val rawChar: Char,
     internal val escapedChar: String
-) : Node {
+) : CharacterSetNode {
 
-    // region Node
+    // region CharacterSetNode
 
-    override fun build(forge: Forge, builder: StringBuilder) {
-        builder.append(rawChar)
-    }
+    override val charRangeSet: CharRangeSet
+        get() = CharRangeSet.of(rawChar)
+
+    // endregion
+
+    // region Node
 
     override fun toRegex(): String {
         return escapedChar
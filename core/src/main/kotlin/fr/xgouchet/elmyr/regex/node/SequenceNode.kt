@@ -1,6 +1,5 @@
 package fr.xgouchet.elmyr.regex.node
 
-import fr.xgouchet.elmyr.Forge
 import fr.xgouchet.elmyr.regex.quantifier.Quantifier
 
 /**
@@ -41,12 +40,6 @@ internal open class SequenceNode(
 
     // region Node
 
-    override fun build(forge: Forge, builder: StringBuilder) {
-        for (child in children) {
-            child.build(forge, builder)
-        }
-    }
-
     override fun toRegex(): String {
         return children.joinToString("") { it.toRegex() }
     }
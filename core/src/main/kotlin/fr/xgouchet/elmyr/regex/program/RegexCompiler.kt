@@ -0,0 +1,217 @@
+package fr.xgouchet.elmyr.regex.program
+
+import fr.xgouchet.elmyr.regex.charset.CharRangeSet
+import fr.xgouchet.elmyr.regex.node.AlternationNode
+import fr.xgouchet.elmyr.regex.node.BackReferenceNode
+import fr.xgouchet.elmyr.regex.node.CharacterSetNode
+import fr.xgouchet.elmyr.regex.node.GroupNode
+import fr.xgouchet.elmyr.regex.node.Node
+import fr.xgouchet.elmyr.regex.node.ParentNode
+import fr.xgouchet.elmyr.regex.node.QuantifiedNode
+import fr.xgouchet.elmyr.regex.node.RawCharNode
+import fr.xgouchet.elmyr.regex.quantifier.Quantifier
+import java.util.IdentityHashMap
+
+/**
+ * Lowers a parsed regex node tree into a flat [RegexProgram].
+ */
+internal class RegexCompiler
+private constructor() {
+
+    private val code = mutableListOf<Int>()
+    private val literals = mutableListOf<String>()
+    private val charSets = mutableListOf<CharRangeSet>()
+    private val quantifiers = mutableListOf<Quantifier>()
+    private val branchTables = mutableListOf<IntArray>()
+    private val literalTables = mutableListOf<Array<String>>()
+
+    private val groupIndices = IdentityHashMap<GroupNode, Int>()
+    private val referencedGroups = mutableSetOf<Int>()
+    private var repeatDepth = 0
+    private var maxRepeatDepth = 0
+
+    // tasks left to run, in reverse order (the compiler doesn't recurse to support deeply nested regexes)
+    private val pendingTasks = ArrayDeque<() -> Unit>()
+
+    // region Internal
+
+    private fun run(rootNode: Node) {
+        // groups are numbered in the order of their opening parenthesis, as back references expect
+        // only the groups used by a back reference need to record their captures
+        if (rootNode is ParentNode) {
+            val hierarchy = rootNode.flattenHierarchy()
+            hierarchy.filterIsInstance<GroupNode>()
+                .forEachIndexed { index, groupNode -> groupIndices[groupNode] = index }
+            hierarchy.filterIsInstance<BackReferenceNode>()
+                .forEach { referencedGroups.add(it.groupReference - 1) }
+        }
+
+        pendingTasks.addLast { compile(rootNode) }
+        while (pendingTasks.isNotEmpty()) {
+            pendingTasks.removeLast().invoke()
+        }
+    }
+
+    private fun compile(node: Node) {
+        when (node) {
+            is RawCharNode -> emitLiteral(node.rawChar.toString())
+            is CharacterSetNode -> emit(RegexProgram.OP_CHAR_SET, charSets.addIndexed(node.charRangeSet))
+            is QuantifiedNode -> compileQuantified(node)
+            is AlternationNode -> compileAlternation(node)
+            is GroupNode -> compileGroup(node)
+            is BackReferenceNode -> compileBackReference(node)
+            is ParentNode -> compileSequence(node.getChildNodes())
+            else -> throw IllegalStateException("Unable to compile node $node")
+        }
+    }
+
+    private fun compileSequence(children: List<Node>) {
+        val tasks = mutableListOf<() -> Unit>()
+        var i = 0
+        while (i < children.size) {
+            val child = children[i]
+            if (child is RawCharNode) {
+                // merge consecutive raw chars in a single literal
+                val literal = StringBuilder()
+                while (i < children.size && children[i] is RawCharNode) {
+                    literal.append((children[i] as RawCharNode).rawChar)
+                    i++
+                }
+                tasks.add { emitLiteral(literal.toString()) }
+            } else {
+                tasks.add { compile(child) }
+                i++
+            }
+        }
+        schedule(tasks)
+    }
+
+    private fun compileQuantified(node: QuantifiedNode) {
+        val repeatPc = code.size
+        emit(RegexProgram.OP_REPEAT, quantifiers.addIndexed(node.quantifier), EXIT_PLACEHOLDER)
+        val bodyPc = code.size
+
+        repeatDepth++
+        maxRepeatDepth = maxOf(maxRepeatDepth, repeatDepth)
+
+        schedule(
+            { compile(node.node) },
+            {
+                repeatDepth--
+                emit(RegexProgram.OP_LOOP, bodyPc)
+                code[repeatPc + 2] = code.size
+            }
+        )
+    }
+
+    private fun compileAlternation(node: AlternationNode) {
+        // alternatives made of raw chars only are picked in a single instruction
+        val literalAlternatives = node.literalAlternatives
+        if (literalAlternatives != null) {
+            emit(RegexProgram.OP_LITERAL_CHOICE, literalTables.addIndexed(literalAlternatives))
+            return
+        }
+
+        val alternatives = node.getChildNodes()
+        val targets = IntArray(alternatives.size)
+        emit(RegexProgram.OP_BRANCH, branchTables.addIndexed(targets))
+
+        val jumpOperandIndices = IntArray(alternatives.size)
+        val tasks = mutableListOf<() -> Unit>()
+        alternatives.forEachIndexed { index, alternative ->
+            tasks.add {
+                targets[index] = code.size
+                compile(alternative)
+            }
+            tasks.add {
+                emit(RegexProgram.OP_JUMP, EXIT_PLACEHOLDER)
+                jumpOperandIndices[index] = code.size - 1
+            }
+        }
+        tasks.add {
+            val exitPc = code.size
+            jumpOperandIndices.forEach { code[it] = exitPc }
+        }
+        schedule(tasks)
+    }
+
+    private fun compileGroup(node: GroupNode) {
+        val groupIndex = groupIndexOf(node)
+        if (groupIndex !in referencedGroups) {
+            compileSequence(node.getChildNodes())
+            return
+        }
+
+        emit(RegexProgram.OP_GROUP_START, groupIndex)
+        schedule(
+            { compileSequence(node.getChildNodes()) },
+            { emit(RegexProgram.OP_GROUP_END, groupIndex) }
+        )
+    }
+
+    private fun compileBackReference(node: BackReferenceNode) {
+        val groupIndex = node.groupReference - 1
+        check(groupIndex in 0 until groupIndices.size) {
+            "Illegal back reference /\\${node.groupReference}/, not enough groups"
+        }
+        emit(RegexProgram.OP_BACK_REFERENCE, groupIndex)
+    }
+
+    private fun schedule(vararg tasks: () -> Unit) {
+        schedule(tasks.asList())
+    }
+
+    private fun schedule(tasks: List<() -> Unit>) {
+        for (i in tasks.indices.reversed()) {
+            pendingTasks.addLast(tasks[i])
+        }
+    }
+
+    private fun emitLiteral(literal: String) {
+        emit(RegexProgram.OP_LITERAL, literals.addIndexed(literal))
+    }
+
+    private fun emit(opcode: Int, vararg operands: Int) {
+        code.add(opcode)
+        operands.forEach { code.add(it) }
+    }
+
+    private fun groupIndexOf(node: GroupNode): Int {
+        return checkNotNull(groupIndices[node]) { "Unknown group $node" }
+    }
+
+    private fun <T> MutableList<T>.addIndexed(element: T): Int {
+        add(element)
+        return lastIndex
+    }
+
+    private fun build(): RegexProgram {
+        return RegexProgram(
+            code = code.toIntArray(),
+            literals = literals.toTypedArray(),
+            charSets = charSets.toTypedArray(),
+            quantifiers = quantifiers.toTypedArray(),
+            branchTables = branchTables.toTypedArray(),
+            literalTables = literalTables.toTypedArray(),
+            groupCount = groupIndices.size,
+            maxRepeatDepth = maxRepeatDepth
+        )
+    }
+
+    // endregion
+
+    companion object {
+
+        private const val EXIT_PLACEHOLDER = -1
+
+        /**
+         * @param rootNode the root of a parsed regex
+         * @return the program generating strings matching the regex
+         */
+        fun compile(rootNode: Node): RegexProgram {
+            val compiler = RegexCompiler()
+            compiler.run(rootNode)
+            return compiler.build()
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package fr.xgouchet.elmyr.regex.program
+
+/**
+ * The mutable state of a [RegexProgram] run: the builder receiving the generated characters, the
+ * last capture of each referenced group, and the remaining iterations of each ongoing repetition.
+ *
+ * When an output is given, the builder only acts as a buffer: its content is written to the output
+ * in chunks of [chunkSize] chars as soon as possible, so that the memory used doesn't depend on the
+ * length of the generated string (apart from the captures needed by back references).
+ *
+ * Keeping this state out of the program (and out of the parsed nodes) lets a compiled regex be shared
+ * between threads, as long as each thread uses its own context.
+ */
+internal class RegexContext(
+    groupCount: Int,
+    maxRepeatDepth: Int,
+    val builder: StringBuilder = StringBuilder(),
+    private val output: Appendable? = null,
+    private val chunkSize: Int = DEFAULT_CHUNK_SIZE
+) {
+
+    // offsets of the ongoing capture of each group in the builder (or -1 if the group is not open)
+    private val captureStarts = IntArray(groupCount)
+
+    // the last complete capture of each group, only for groups with a back reference
+    private val captures = arrayOfNulls<StringBuilder>(groupCount)
+    private val isCaptured = BooleanArray(groupCount)
+
+    // remaining iterations for each ongoing repetition
+    internal val repeatCounters = IntArray(maxRepeatDepth)
+
+    /** The builder's length above which its content must be written to the output. */
+    internal val flushThreshold: Int = if (output == null) Int.MAX_VALUE else chunkSize
+
+    init {
+        require(chunkSize > 0) { "The chunk size ($chunkSize) must be strictly positive" }
+    }
+
+    // region RegexContext
+
+    /**
+     * Forgets the captures of a previous run. The builder's content is kept, new characters are
+     * appended after it.
+     */
+    fun reset() {
+        captureStarts.fill(NOT_CAPTURED)
+        isCaptured.fill(false)
+    }
+
+    fun startCapture(group: Int) {
+        captureStarts[group] = builder.length
+        isCaptured[group] = false
+        captureOf(group).setLength(0)
+    }
+
+    fun endCapture(group: Int) {
+        captureOf(group).append(builder, captureStarts[group], builder.length)
+        captureStarts[group] = NOT_CAPTURED
+        isCaptured[group] = true
+    }
+
+    /**
+     * Appends the last capture of the given group (if any) to the builder.
+     */
+    fun appendCapture(group: Int) {
+        if (isCaptured[group]) {
+            builder.append(captures[group])
+        }
+    }
+
+    /**
+     * Writes the builder's content to the output (if any), by chunks of [chunkSize] chars.
+     * @param isComplete whether the generation is over (and the last incomplete chunk must be
+     * written too)
+     */
+    fun flush(isComplete: Boolean) {
+        val output = output ?: return
+
+        var written = 0
+        while (builder.length - written >= chunkSize) {
+            output.append(builder, written, written + chunkSize)
+            written += chunkSize
+        }
+        if (isComplete && written < builder.length) {
+            output.append(builder, written, builder.length)
+            written = builder.length
+        }
+
+        // keep the part of the ongoing captures which is about to leave the builder
+        for (group in captureStarts.indices) {
+            val start = captureStarts[group]
+            if (start == NOT_CAPTURED) continue
+            if (start < written) captureOf(group).append(builder, start, written)
+            captureStarts[group] = maxOf(start - written, 0)
+        }
+        builder.delete(0, written)
+    }
+
+    // endregion
+
+    // region Internal
+
+    private fun captureOf(group: Int): StringBuilder {
+        return captures[group] ?: StringBuilder().also { captures[group] = it }
+    }
+
+    // endregion
+
+    companion object {
+        internal const val NOT_CAPTURED = -1
+        internal const val DEFAULT_CHUNK_SIZE = 0x2000
+    }
+}
@@ -0,0 +1,187 @@
+package fr.xgouchet.elmyr.regex.program
+
+import fr.xgouchet.elmyr.Forge
+import fr.xgouchet.elmyr.regex.charset.CharRangeSet
+import fr.xgouchet.elmyr.regex.quantifier.Quantifier
+
+/**
+ * A regex lowered into a flat list of instructions, run by a non recursive interpreter.
+ *
+ * Each instruction is an opcode followed by its operands in the [code] array. Operands are either
+ * plain values (e.g. a jump target) or indices in one of the operand pools (literals, character sets,
+ * quantifiers, branch tables and literal tables).
+ *
+ * A program is immutable: everything changing during a run is kept in a [RegexContext], so a single
+ * program can be run concurrently from several threads.
+ */
+internal class RegexProgram(
+    private val code: IntArray,
+    private val literals: Array<String>,
+    private val charSets: Array<CharRangeSet>,
+    private val quantifiers: Array<Quantifier>,
+    private val branchTables: Array<IntArray>,
+    private val literalTables: Array<Array<String>>,
+    internal val groupCount: Int,
+    internal val maxRepeatDepth: Int
+) {
+
+    // region RegexProgram
+
+    /**
+     * @param builder the builder the generated characters will be appended to
+     * @return a new context to run this program with
+     */
+    fun newContext(builder: StringBuilder = StringBuilder()): RegexContext {
+        return RegexContext(groupCount, maxRepeatDepth, builder)
+    }
+
+    /**
+     * @param output the output the generated characters will be written to
+     * @param chunkSize the number of chars written to the output at once
+     * @return a new context to run this program with, streaming the generated characters
+     */
+    fun newStreamingContext(output: Appendable, chunkSize: Int): RegexContext {
+        return RegexContext(groupCount, maxRepeatDepth, StringBuilder(chunkSize), output, chunkSize)
+    }
+
+    /**
+     * Runs the program, appending the generated characters to the context's builder (or writing them
+     * to the context's output, when streaming).
+     * @param forge the forge to use
+     * @param context the context to run the program with (created with [newContext])
+     */
+    @Suppress("ComplexMethod", "LongMethod")
+    fun generate(forge: Forge, context: RegexContext) {
+        context.reset()
+        val builder = context.builder
+        val flushThreshold = context.flushThreshold
+        val repeatCounters = context.repeatCounters
+        var repeatDepth = 0
+
+        var pc = 0
+        while (pc < code.size) {
+            if (builder.length >= flushThreshold) context.flush(isComplete = false)
+            when (code[pc]) {
+                OP_LITERAL -> {
+                    builder.append(literals[code[pc + 1]])
+                    pc += 2
+                }
+                OP_CHAR_SET -> {
+                    builder.appendCodePoint(charSets[code[pc + 1]].aCodePoint(forge))
+                    pc += 2
+                }
+                OP_REPEAT -> {
+                    val count = quantifiers[code[pc + 1]].getQuantity(forge)
+                    if (count <= 0) {
+                        pc = code[pc + 2]
+                    } else {
+                        repeatCounters[repeatDepth++] = count
+                        pc += 3
+                    }
+                }
+                OP_LOOP -> {
+                    val remaining = --repeatCounters[repeatDepth - 1]
+                    if (remaining > 0) {
+                        pc = code[pc + 1]
+                    } else {
+                        repeatDepth--
+                        pc += 2
+                    }
+                }
+                OP_BRANCH -> {
+                    val targets = branchTables[code[pc + 1]]
+                    pc = targets[forge.anInt(0, targets.size)]
+                }
+                OP_LITERAL_CHOICE -> {
+                    val choices = literalTables[code[pc + 1]]
+                    builder.append(choices[forge.anInt(0, choices.size)])
+                    pc += 2
+                }
+                OP_JUMP -> pc = code[pc + 1]
+                OP_GROUP_START -> {
+                    context.startCapture(code[pc + 1])
+                    pc += 2
+                }
+                OP_GROUP_END -> {
+                    context.endCapture(code[pc + 1])
+                    pc += 2
+                }
+                OP_BACK_REFERENCE -> {
+                    context.appendCapture(code[pc + 1])
+                    pc += 2
+                }
+                else -> throw IllegalStateException("Unknown opcode ${code[pc]} at $pc")
+            }
+        }
+        context.flush(isComplete = true)
+    }
+
+    // endregion
+
+    // region Object
+
+    override fun toString(): String {
+        val instructions = mutableListOf<String>()
+        var pc = 0
+        while (pc < code.size) {
+            val opcode = code[pc]
+            val operandCount = operandCount(opcode)
+            val operands = (1..operandCount).joinToString(" ") { "${code[pc + it]}" }
+            instructions.add("$pc: ${OPCODE_NAMES[opcode]} $operands")
+            pc += operandCount + 1
+        }
+        return instructions.joinToString("\n", prefix = "RegexProgram(\n", postfix = "\n)")
+    }
+
+    // endregion
+
+    companion object {
+
+        /** Appends a literal string: `LITERAL literalIndex`. */
+        internal const val OP_LITERAL = 0
+
+        /** Appends a character picked in a set: `CHAR_SET charSetIndex`. */
+        internal const val OP_CHAR_SET = 1
+
+        /** Starts a repetition, or skips it if the quantity is 0: `REPEAT quantifierIndex exitPc`. */
+        internal const val OP_REPEAT = 2
+
+        /** Ends an iteration, and loops back to the body if needed: `LOOP bodyPc`. */
+        internal const val OP_LOOP = 3
+
+        /** Jumps to one of the alternatives: `BRANCH branchTableIndex`. */
+        internal const val OP_BRANCH = 4
+
+        /** Jumps unconditionally: `JUMP targetPc`. */
+        internal const val OP_JUMP = 5
+
+        /** Marks the start of a capture (only for referenced groups): `GROUP_START groupIndex`. */
+        internal const val OP_GROUP_START = 6
+
+        /** Marks the end of a capture (only for referenced groups): `GROUP_END groupIndex`. */
+        internal const val OP_GROUP_END = 7
+
+        /** Appends the last capture of a group: `BACK_REFERENCE groupIndex`. */
+        internal const val OP_BACK_REFERENCE = 8
+
+        /** Appends one of the literal strings in a table: `LITERAL_CHOICE literalTableIndex`. */
+        internal const val OP_LITERAL_CHOICE = 9
+
+        private val OPCODE_NAMES = arrayOf(
+            "LITERAL",
+            "CHAR_SET",
+            "REPEAT",
+            "LOOP",
+            "BRANCH",
+            "JUMP",
+            "GROUP_START",
+            "GROUP_END",
+            "BACK_REFERENCE",
+            "LITERAL_CHOICE"
+        )
+
+        internal fun operandCount(opcode: Int): Int {
+            return if (opcode == OP_REPEAT) 2 else 1
+        }
+    }
+}
@@ -3,6 +3,13 @@ package fr.xgouchet.elmyr.regex.quantifier
 import fr.xgouchet.elmyr.Forge
 
 internal interface Quantifier {
+
+    /** The minimum number of repetitions matched by this quantifier. */
+    val minQuantity: Int
+
+    /** The maximum number of repetitions matched by this quantifier, or [UNBOUNDED]. */
+    val maxQuantity: Int
+
     fun getQuantity(forge: Forge): Int
 
     companion object {
@@ -14,5 +21,7 @@ internal interface Quantifier {
         internal val ONE_OR_MORE = QuantifierOneOrMore
 
         internal const val MAX_UNBOUND_QUANTITY = 0x20
+
+        internal const val UNBOUNDED = Int.MAX_VALUE
     }
 }
@@ -6,6 +6,10 @@ internal class QuantifierAtLeastN(
     private val n: Int
 ) : Quantifier {
 
+    override val minQuantity: Int = n
+
+    override val maxQuantity: Int = Quantifier.UNBOUNDED
+
     override fun getQuantity(forge: Forge): Int {
         return forge.anInt(n, n + Quantifier.MAX_UNBOUND_QUANTITY)
     }
@@ -6,6 +6,10 @@ internal class QuantifierExactlyN(
     private val n: Int
 ) : Quantifier {
 
+    override val minQuantity: Int = n
+
+    override val maxQuantity: Int = n
+
     override fun getQuantity(forge: Forge): Int = n
 
     override fun toString(): String {
@@ -4,6 +4,10 @@ import fr.xgouchet.elmyr.Forge
 
 internal object QuantifierMaybeOne : Quantifier {
 
+    override val minQuantity: Int = 0
+
+    override val maxQuantity: Int = 1
+
     override fun getQuantity(forge: Forge): Int = if (forge.aBool()) 0 else 1
 
     override fun toString(): String {
@@ -4,6 +4,10 @@ import fr.xgouchet.elmyr.Forge
 
 internal object QuantifierOneOrMore : Quantifier {
 
+    override val minQuantity: Int = 1
+
+    override val maxQuantity: Int = Quantifier.UNBOUNDED
+
     override fun getQuantity(forge: Forge): Int = forge.anInt(1, Quantifier.MAX_UNBOUND_QUANTITY)
 
     override fun toString(): String {
@@ -7,6 +7,10 @@ internal class QuantifierRange(
     private val m: Int
 ) : Quantifier {
 
+    override val minQuantity: Int = n
+
+    override val maxQuantity: Int = m
+
     override fun getQuantity(forge: Forge): Int = forge.anInt(n, m + 1)
 
     override fun toString(): String {
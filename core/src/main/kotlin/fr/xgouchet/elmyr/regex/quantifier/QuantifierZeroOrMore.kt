@@ -4,6 +4,10 @@ import fr.xgouchet.elmyr.Forge
 
 internal object QuantifierZeroOrMore : Quantifier {
 
+    override val minQuantity: Int = 0
+
+    override val maxQuantity: Int = Quantifier.UNBOUNDED
+
     override fun getQuantity(forge: Forge): Int = forge.anInt(0, Quantifier.MAX_UNBOUND_QUANTITY)
 
     override fun toString(): String {
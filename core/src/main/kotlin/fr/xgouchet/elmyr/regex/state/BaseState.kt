@@ -74,6 +74,13 @@ internal class BaseState<T>(
     private fun handleAlternation(): State {
         val parentNode = ongoingNode.getParent()
 
+        // keep all the alternatives of /a|b|c/ in a single alternation
+        if (parentNode is AlternationNode) {
+            val next = SequenceNode(parentNode)
+            parentNode.add(next)
+            return BaseState(next, previousState)
+        }
+
         // create alternation
         val alternation = AlternationNode()
         parentNode.remove(ongoingNode)
@@ -1,6 +1,5 @@
 package fr.xgouchet.elmyr.regex.state
 
-import fr.xgouchet.elmyr.Forge
 import fr.xgouchet.elmyr.regex.node.BaseParentNode
 import fr.xgouchet.elmyr.regex.node.CharacterClassNode
 import fr.xgouchet.elmyr.regex.node.CharacterRangeNode
@@ -32,10 +31,6 @@ internal class CharacterClassRangeState(
                         classNode.add(CharacterRangeNode(previous, node))
                     }
 
-                    override fun build(forge: Forge, builder: StringBuilder) {
-                        throw UnsupportedOperationException("Anonymous class can't build a regex")
-                    }
-
                     override fun toRegex(): String {
                         throw UnsupportedOperationException("Anonymous class can't build a regex")
                     }
@@ -15,6 +15,9 @@ internal class EscapeState(
     private var readingOctal = false
     private var readingHexadecimal = false
     private var readingUnicode = false
+    private var readingProperty = false
+    private var isPropertyNegation = false
+    private var isPropertyInBraces = false
     private var backReference = 0
     private var hexadecimalValue = 0
     private var octalValue = 0
@@ -25,6 +28,8 @@ internal class EscapeState(
     override fun handleChar(c: Char): State {
         return if (readingBackReference) {
             handleBackReferenceChars(c)
+        } else if (readingProperty) {
+            handlePropertyChars(c)
         } else if (readingUnicode || readingHexadecimal) {
             handleHexadecimalChars(c)
         } else if (readingOctal) {
@@ -38,6 +43,8 @@ internal class EscapeState(
         if (readingBackReference) {
             ongoingNode.add(BackReferenceNode(backReference, ongoingNode))
             previousState.handleEndOfRegex()
+        } else if (readingProperty) {
+            throw IllegalStateException("Unexpected end of expression in unicode property")
         } else if (readingUnicode) {
             runIfNonEmptyEscapedString("unicode character") {
                 val escapedChar = "\\u${hexadecimalValue.toString(BASE_16).padStart(UNICODE_PADDING, '0')}"
@@ -106,6 +113,13 @@ internal class EscapeState(
                 newState = this
             }
 
+            // Unicode properties
+            'p', 'P' -> {
+                readingProperty = true
+                isPropertyNegation = (c == 'P')
+                newState = this
+            }
+
             '1', '2', '3', '4', '5', '6', '7', '8', '9' -> if (allowBackReference) {
                 readingBackReference = true
                 val digit = (c - '0')
@@ -137,6 +151,32 @@ internal class EscapeState(
         return newState
     }
 
+    private fun handlePropertyChars(c: Char): State {
+        if (escapedStr.isEmpty() && !isPropertyInBraces) {
+            if (c == '{') {
+                isPropertyInBraces = true
+                return this
+            }
+            // single letter form, e.g.: /\pL/
+            return addProperty("$c", "$c")
+        }
+
+        return if (c == '}') {
+            runIfNonEmptyEscapedString("unicode property name") {
+                addProperty("{$escapedStr}", escapedStr)
+            }
+        } else {
+            escapedStr += c
+            this
+        }
+    }
+
+    private fun addProperty(suffix: String, name: String): State {
+        val shortcut = (if (isPropertyNegation) "\\P" else "\\p") + suffix
+        ongoingNode.add(PredefinedCharacterClassNode.unicodeProperty(shortcut, name, isPropertyNegation))
+        return previousState
+    }
+
     private fun handleHexadecimalChars(c: Char): State {
         var newState: State = this
         when (c) {
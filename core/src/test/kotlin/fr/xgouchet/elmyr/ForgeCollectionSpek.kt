@@ -1,6 +1,7 @@
 package fr.xgouchet.elmyr
 
 import java.time.Month
+import java.util.LinkedList
 import org.assertj.core.api.Assertions.assertThat
 import org.assertj.core.api.KotlinAssertions.assertThat as assertThatK
 import org.spekframework.spek2.Spek
@@ -338,6 +339,44 @@ class ForgeCollectionSpek : Spek({
                         .doesNotHaveDuplicates()
                         .doesNotContainNull()
             }
+
+            it("forges the same sublist with the same seed") {
+                val seed = forge.seed
+                val inputList = List(forge.anInt(Forge.TINY_THRESHOLD, 1000)) { it }
+                val outputSize = forge.anInt(1, inputList.size)
+                val data = forge.aSubListOf(inputList, outputSize)
+
+                forge.seed = seed
+                forge.anInt(Forge.TINY_THRESHOLD, 1000)
+                forge.anInt(1, inputList.size)
+                val otherData = forge.aSubListOf(inputList, outputSize)
+
+                assertThat(otherData).isEqualTo(data)
+                assertThat(data).isSorted()
+            }
+
+            it("forges all sublists with the same probability") {
+                val inputList = listOf("a", "b", "c", "d", "e")
+                val sublists = listOf(
+                    "ab", "ac", "ad", "ae", "bc", "bd", "be", "cd", "ce", "de"
+                )
+
+                verifyUniformDistribution(sublists.size) {
+                    sublists.indexOf(forge.aSubListOf(inputList, 2).joinToString(""))
+                }
+            }
+
+            it("forges a sublist of a linked list") {
+                val inputList = LinkedList(List(forge.anInt(Forge.TINY_THRESHOLD, 1000)) { it })
+                val outputSize = forge.anInt(1, inputList.size)
+
+                val data = forge.aSubListOf(inputList, outputSize)
+
+                assertThat(data)
+                        .hasSize(outputSize)
+                        .doesNotHaveDuplicates()
+                        .isSorted()
+            }
         }
 
         context("forging subset") {
@@ -475,6 +514,31 @@ class ForgeCollectionSpek : Spek({
                         .doesNotHaveDuplicates()
                         .doesNotContainNull()
             }
+
+            it("forges the same subset with the same seed") {
+                val seed = forge.seed
+                val inputSet = List(forge.anInt(Forge.TINY_THRESHOLD, 1000)) { it }.toSet()
+                val outputSize = forge.anInt(1, inputSet.size)
+                val data = forge.aSubSetOf(inputSet, outputSize)
+
+                forge.seed = seed
+                forge.anInt(Forge.TINY_THRESHOLD, 1000)
+                forge.anInt(1, inputSet.size)
+                val otherData = forge.aSubSetOf(inputSet, outputSize)
+
+                assertThat(otherData).isEqualTo(data)
+            }
+
+            it("forges all subsets with the same probability") {
+                val inputSet = setOf("a", "b", "c", "d", "e")
+                val subsets = listOf(
+                    "ab", "ac", "ad", "ae", "bc", "bd", "be", "cd", "ce", "de"
+                )
+
+                verifyUniformDistribution(subsets.size) {
+                    subsets.indexOf(forge.aSubSetOf(inputSet, 2).sorted().joinToString(""))
+                }
+            }
         }
 
         context("shuffling a list") {
@@ -580,6 +644,69 @@ class ForgeCollectionSpek : Spek({
             }
         }
 
+        context("shuffling in place") {
+
+            it("shuffles a list like shuffle()") {
+                val seed = forge.seed
+                val inputList = List(forge.aSmallInt() + 2) { forge.aString() }
+                val shuffled = forge.shuffle(inputList)
+
+                forge.seed = seed
+                forge.aSmallInt()
+                repeat(inputList.size) { forge.aString() }
+                val data = inputList.toMutableList()
+                forge.shuffleInPlace(data)
+
+                assertThat(data).isEqualTo(shuffled)
+            }
+
+            it("shuffles a linked list like shuffle()") {
+                val seed = forge.seed
+                val inputList = List(forge.aSmallInt() + 2) { it }
+                val shuffled = forge.shuffle(inputList)
+
+                forge.seed = seed
+                forge.aSmallInt()
+                val data = LinkedList(inputList)
+                forge.shuffleInPlace(data)
+
+                assertThat(data).isEqualTo(shuffled)
+            }
+
+            it("shuffles an array like shuffle()") {
+                val seed = forge.seed
+                val inputArray = Array(forge.aSmallInt() + 2) { it }
+                val shuffled = forge.shuffle(inputArray)
+
+                forge.seed = seed
+                forge.aSmallInt()
+                val data = inputArray.copyOf()
+                forge.shuffleInPlace(data)
+
+                assertThat(data.toList()).isEqualTo(shuffled.toList())
+            }
+
+            it("shuffles an int array") {
+                val size = forge.aSmallInt() + 128
+                val data = IntArray(size) { it }
+
+                forge.shuffleInPlace(data)
+
+                assertThat(data.sorted()).isEqualTo(List(size) { it })
+                assertThat(data.asList()).isNotEqualTo(List(size) { it })
+            }
+
+            it("forges all permutations with the same probability") {
+                val permutations = listOf("abc", "acb", "bac", "bca", "cab", "cba")
+
+                verifyUniformDistribution(permutations.size) {
+                    val data = mutableListOf('a', 'b', 'c')
+                    forge.shuffleInPlace(data)
+                    permutations.indexOf(data.joinToString(""))
+                }
+            }
+        }
+
         // endregion
 
         // region Generate a collection
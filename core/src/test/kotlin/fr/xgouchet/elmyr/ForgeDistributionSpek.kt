@@ -0,0 +1,247 @@
+package fr.xgouchet.elmyr
+
+import fr.xgouchet.elmyr.random.NormalDistribution
+import kotlin.math.exp
+import kotlin.math.ln
+import kotlin.math.pow
+import org.assertj.core.api.Assertions.assertThat
+import org.spekframework.spek2.Spek
+import org.spekframework.spek2.style.specification.describe
+
+class ForgeDistributionSpek : Spek({
+
+    describe("A forge") {
+        val forge = Forge()
+        var seed: Long
+
+        val testRepeatCountSmall = 16
+
+        beforeEachTest {
+            seed = Forge.seed()
+            forge.seed = seed
+        }
+
+        // region Exponential
+
+        context("forging exponentially distributed doubles") {
+
+            it("forges positive doubles with the given mean") {
+                val mean = forge.aDouble(1.0, 1000.0)
+
+                verifyDistribution({ 1 - exp(-it / mean) }) { forge.anExponentialDouble(mean) }
+            }
+
+            it("fails with a non positive mean") {
+                throws<IllegalArgumentException> {
+                    forge.anExponentialDouble(-forge.aPositiveDouble())
+                }
+            }
+        }
+
+        // endregion
+
+        // region Log-normal
+
+        context("forging log-normally distributed doubles") {
+
+            it("forges positive doubles with a normally distributed logarithm") {
+                val mu = forge.aDouble(-5.0, 5.0)
+                val sigma = forge.aDouble(0.1, 2.0)
+
+                verifyDistribution({ NormalDistribution.cdf((ln(it) - mu) / sigma) }) {
+                    forge.aLogNormalDouble(mu, sigma)
+                }
+            }
+
+            it("forges e^mu when sigma is 0") {
+                val mu = forge.aDouble(-5.0, 5.0)
+
+                repeat(testRepeatCountSmall) {
+                    assertThat(forge.aLogNormalDouble(mu, 0.0)).isEqualTo(exp(mu))
+                }
+            }
+
+            it("fails with a negative sigma") {
+                throws<IllegalArgumentException> {
+                    forge.aLogNormalDouble(0.0, -forge.aPositiveDouble(strict = true))
+                }
+            }
+        }
+
+        // endregion
+
+        // region Pareto
+
+        context("forging Pareto distributed doubles") {
+
+            it("forges doubles above the scale with a power law tail") {
+                val scale = forge.aDouble(1.0, 1000.0)
+                val shape = forge.aDouble(0.5, 3.0)
+
+                verifyDistribution({ 1 - (scale / it).pow(shape) }) { forge.aParetoDouble(scale, shape) }
+            }
+
+            it("fails with a non positive scale or shape") {
+                throws<IllegalArgumentException> {
+                    forge.aParetoDouble(0.0, 1.0)
+                }
+                throws<IllegalArgumentException> {
+                    forge.aParetoDouble(1.0, -forge.aPositiveDouble())
+                }
+            }
+        }
+
+        // endregion
+
+        // region Truncated gaussian
+
+        context("forging truncated gaussian doubles") {
+
+            it("follows a normal distribution within 3 standard deviations") {
+                val lower = NormalDistribution.cdf(-3.0)
+                val upper = NormalDistribution.cdf(3.0)
+
+                verifyDistribution({ (NormalDistribution.cdf(it) - lower) / (upper - lower) }) {
+                    forge.aGaussianDouble()
+                }
+            }
+        }
+
+        // endregion
+
+        // region Zipf
+
+        context("forging Zipf distributed ints") {
+
+            it("forges ints following a power law") {
+                val n = forge.anInt(2, 64)
+                val exponent = forge.aDouble(0.0, 3.0)
+                val weights = DoubleArray(n) { 1 / (it + 1.0).pow(exponent) }
+                val total = weights.sum()
+
+                verifyDiscreteDistribution(DoubleArray(n) { weights[it] / total }) {
+                    forge.aZipfInt(n, exponent)
+                }
+            }
+
+            it("forges ints in a huge range") {
+                val n = forge.anInt(Forge.HUGE_THRESHOLD, Int.MAX_VALUE)
+
+                repeat(testRepeatCountSmall) {
+                    assertThat(forge.aZipfInt(n)).isGreaterThanOrEqualTo(0).isLessThan(n)
+                }
+            }
+
+            it("forges the same ints with the same seed") {
+                val seed = forge.seed
+                val n = forge.aSmallInt() + 1
+                val values = List(testRepeatCountSmall) { forge.aZipfInt(n) }
+
+                forge.seed = seed
+                forge.aSmallInt()
+                val otherValues = List(testRepeatCountSmall) { forge.aZipfInt(n) }
+
+                assertThat(otherValues).isEqualTo(values)
+            }
+
+            it("fails with a non positive n or a negative exponent") {
+                throws<IllegalArgumentException> {
+                    forge.aZipfInt(0)
+                }
+                throws<IllegalArgumentException> {
+                    forge.aZipfInt(forge.aSmallInt() + 1, -forge.aPositiveDouble())
+                }
+                throws<IllegalArgumentException> {
+                    Distribution.Zipf(-forge.aPositiveDouble())
+                }
+            }
+        }
+
+        // endregion
+
+        // region Hotspot
+
+        context("forging hotspot distributed ints") {
+
+            it("forges hot ints with the given probability") {
+                val n = forge.anInt(1, 100) * 10
+                val hotProbability = forge.aFloat(0f, 1f)
+
+                verifyProbability(hotProbability) { forge.aHotspotInt(n, 0.1f, hotProbability) < n / 10 }
+            }
+
+            it("forges uniformly distributed ints within each group") {
+                val hotCount = forge.anInt(2, 16)
+                val coldCount = forge.anInt(2, 16)
+                val n = hotCount + coldCount
+                val hotFraction = hotCount.toFloat() / n
+                val probabilities = DoubleArray(n) {
+                    if (it < hotCount) 0.8 / hotCount else 0.2 / coldCount
+                }
+
+                verifyDiscreteDistribution(probabilities) { forge.aHotspotInt(n, hotFraction, 0.8f) }
+            }
+
+            it("forges uniformly distributed ints without hot values") {
+                val n = forge.anInt(2, 32)
+                val hotProbability = forge.aFloat(0f, 1f)
+
+                verifyUniformDistribution(n) { forge.aHotspotInt(n, 0f, hotProbability) }
+            }
+
+            it("forges at least one hot value with a tiny fraction") {
+                val n = forge.anInt(2, 32)
+
+                verifyProbability(0.8f) { forge.aHotspotInt(n, Float.MIN_VALUE, 0.8f) == 0 }
+            }
+
+            it("fails with an invalid fraction or probability") {
+                throws<IllegalArgumentException> {
+                    forge.aHotspotInt(0)
+                }
+                throws<IllegalArgumentException> {
+                    forge.aHotspotInt(forge.aSmallInt() + 1, hotFraction = forge.aFloat(1.1f, 2f))
+                }
+                throws<IllegalArgumentException> {
+                    forge.aHotspotInt(forge.aSmallInt() + 1, hotProbability = -forge.aPositiveFloat())
+                }
+                throws<IllegalArgumentException> {
+                    Distribution.Hotspot(hotFraction = -forge.aPositiveFloat())
+                }
+            }
+        }
+
+        // endregion
+
+        // region Element from
+
+        context("picking elements with a distribution") {
+
+            it("picks elements following a Zipf distribution") {
+                val list = forge.aList(forge.anInt(2, 32)) { anAlphabeticalString() }.distinct()
+                val weights = DoubleArray(list.size) { 1 / (it + 1.0) }
+                val total = weights.sum()
+
+                verifyDiscreteDistribution(DoubleArray(list.size) { weights[it] / total }) {
+                    list.indexOf(forge.anElementFrom(list, Distribution.Zipf()))
+                }
+            }
+
+            it("picks elements following a hotspot distribution") {
+                val list = List(10) { it }
+
+                verifyProbability(0.8f) {
+                    forge.anElementFrom(list, Distribution.Hotspot(0.2f, 0.8f)) < 2
+                }
+            }
+
+            it("picks elements following a uniform distribution") {
+                val list = List(forge.anInt(2, 32)) { it }
+
+                verifyUniformDistribution(list.size) { forge.anElementFrom(list, Distribution.Uniform) }
+            }
+        }
+
+        // endregion
+    }
+})
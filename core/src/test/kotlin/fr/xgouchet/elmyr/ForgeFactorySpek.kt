@@ -17,6 +17,8 @@ class ForgeFactorySpek : Spek({
         val forge = Forge()
         var seed: Long
 
+        val testRepeatCountSmall = 16
+
         beforeEachTest {
             seed = Forge.seed()
             forge.seed = seed
@@ -59,5 +61,38 @@ class ForgeFactorySpek : Spek({
                 assertThat(food).isIn(fakeEgg, fakeBacon)
             }
         }
+
+        context("with factories added after forging") {
+            val localForge = Forge()
+
+            it("uses the newly added factories") {
+                localForge.addFactory(object : ForgeryFactory<Food.Egg> {
+                    override fun getForgery(forge: Forge): Food.Egg = Food.Egg(forge.aBool())
+                })
+                val foods = List(testRepeatCountSmall) { localForge.getForgery<Food>() }
+
+                localForge.addFactory(object : ForgeryFactory<Food.Bacon> {
+                    override fun getForgery(forge: Forge): Food.Bacon = Food.Bacon(forge.aBool())
+                })
+                val otherFoods = List(testRepeatCountSmall * testRepeatCountSmall) { localForge.getForgery<Food>() }
+
+                assertThat(foods).allMatch { it is Food.Egg }
+                assertThat(otherFoods).anyMatch { it is Food.Egg }.anyMatch { it is Food.Bacon }
+            }
+
+            it("replaces a factory for the same type") {
+                val fakeFoo = Foo(forge.anInt())
+                localForge.addFactory(object : ForgeryFactory<Foo> {
+                    override fun getForgery(forge: Forge): Foo = Foo(forge.anInt())
+                })
+                localForge.getForgery<Foo>()
+
+                localForge.addFactory(object : ForgeryFactory<Foo> {
+                    override fun getForgery(forge: Forge): Foo = fakeFoo
+                })
+
+                assertThat(localForge.getForgery<Foo>()).isSameAs(fakeFoo)
+            }
+        }
     }
 })
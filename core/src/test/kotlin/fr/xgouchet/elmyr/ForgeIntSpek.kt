@@ -83,6 +83,41 @@ class ForgeIntSpek : Spek({
 
         // endregion
 
+        // region Integer uniformity
+
+        context("forging uniformly distributed integers") {
+
+            it("forges uniform ints in a small range") {
+                val min = forge.anInt(-1000, 1000)
+
+                verifyUniformDistribution(7) { forge.anInt(min, min + 7) - min }
+            }
+
+            it("forges uniform ints in a power of two range") {
+                val min = forge.anInt(-1000, 1000)
+
+                verifyUniformDistribution(64) { forge.anInt(min, min + 64) - min }
+            }
+
+            it("forges uniform ints in a range not dividing 2^32") {
+                val max = Int.MIN_VALUE + (3 shl 30)
+
+                verifyUniformDistribution(3) { (forge.anInt(Int.MIN_VALUE, max) - Int.MIN_VALUE) ushr 30 }
+            }
+
+            it("forges uniform ints in the full range") {
+                verifyUniformDistribution(16) { forge.anInt() ushr 28 }
+            }
+
+            it("forges only the min value in a range of size 1") {
+                val min = forge.anInt()
+
+                assertThat(forge.anInt(min, min + 1)).isEqualTo(min)
+            }
+        }
+
+        // endregion
+
         // region Integer with sign
 
         context("forging integers with sign") {
@@ -83,6 +83,46 @@ class ForgeLongSpek : Spek({
 
         // endregion
 
+        // region Long uniformity
+
+        context("forging uniformly distributed longs") {
+
+            it("forges uniform longs in a small range") {
+                val min = forge.aLong(-1000, 1000)
+
+                verifyUniformDistribution(7) { (forge.aLong(min, min + 7) - min).toInt() }
+            }
+
+            it("forges uniform longs in a power of two range") {
+                val min = forge.aLong(-1000, 1000)
+
+                verifyUniformDistribution(64) { (forge.aLong(min, min + 64) - min).toInt() }
+            }
+
+            it("forges unbiased longs in a range not dividing 2^64") {
+                val max = 3L shl 61
+
+                verifyUniformDistribution(3) { (forge.aLong(0L, max) ushr 61).toInt() }
+            }
+
+            it("forges uniform longs in the full range") {
+                verifyUniformDistribution(16) { (forge.aLong() ushr 60).toInt() }
+            }
+
+            it("forges odd longs in the full range") {
+                verifyProbability(0.5) { (forge.aLong() and 1L) == 1L }
+            }
+
+            it("forges longs close to the max value") {
+                repeat(testRepeatCountSmall) {
+                    assertThat(forge.aLong(Long.MAX_VALUE - 2, Long.MAX_VALUE))
+                        .isBetween(Long.MAX_VALUE - 2, Long.MAX_VALUE - 1)
+                }
+            }
+        }
+
+        // endregion
+
         // region Long with sign
 
         context("forging longs with sign") {
@@ -0,0 +1,131 @@
+package fr.xgouchet.elmyr
+
+import org.assertj.core.api.Assertions.assertThat
+import org.spekframework.spek2.Spek
+import org.spekframework.spek2.style.specification.describe
+
+class ForgePrimitiveArraySpek : Spek({
+
+    describe("A forge") {
+        val forge = Forge()
+        var seed: Long
+
+        val arraySize = 4096
+
+        beforeEachTest {
+            seed = Forge.seed()
+            forge.seed = seed
+        }
+
+        context("forging primitive arrays") {
+
+            it("forges an int array in a specified range") {
+                val min = forge.anInt(Int.MIN_VALUE, Int.MAX_VALUE - 1)
+                val max = forge.anInt(min = min + 1)
+
+                val array = forge.anIntArray(arraySize, min, max)
+
+                assertThat(array.asList()).hasSize(arraySize)
+                    .allMatch { it >= min && it < max }
+            }
+
+            it("forges the same ints as anInt()") {
+                val seed = forge.seed
+                val array = forge.anIntArray(arraySize, -1000, 1000)
+
+                forge.seed = seed
+                val ints = IntArray(arraySize) { forge.anInt(-1000, 1000) }
+
+                assertThat(array).isEqualTo(ints)
+            }
+
+            it("forges a long array in a specified range") {
+                val min = forge.aLong(Long.MIN_VALUE, Long.MAX_VALUE - 1)
+                val max = forge.aLong(min = min + 1)
+
+                val array = forge.aLongArray(arraySize, min, max)
+
+                assertThat(array.asList()).hasSize(arraySize)
+                    .allMatch { it >= min && it < max }
+            }
+
+            it("forges a float array in a specified range") {
+                val array = forge.aFloatArray(arraySize, -1f, 1f)
+
+                assertThat(array.asList()).hasSize(arraySize)
+                    .allMatch { it >= -1f && it <= 1f }
+                assertThat(array.toSet()).hasSizeGreaterThan(arraySize / 2)
+            }
+
+            it("forges a double array in a specified range") {
+                val array = forge.aDoubleArray(arraySize, 0.0, 1.0)
+
+                assertThat(array.asList()).hasSize(arraySize)
+                    .allMatch { it >= 0.0 && it <= 1.0 }
+                assertThat(array.toSet()).hasSizeGreaterThan(arraySize / 2)
+            }
+
+            it("forges a boolean array with a given probability") {
+                val array = forge.aBooleanArray(arraySize, 0.25f)
+
+                val trueCount = array.count { it }
+                assertThat(trueCount).isBetween(arraySize / 8, arraySize * 3 / 8)
+            }
+
+            it("forges a char array without illegal chars") {
+                val array = forge.aCharArray(arraySize)
+
+                assertThat(array.asList()).hasSize(arraySize)
+                    .allMatch { it >= Forge.MIN_PRINTABLE && it < Forge.MAX_UTF8 }
+                    .allMatch { it !in Forge.ILLEGAL_UTF8_CHARS }
+            }
+
+            it("forges a char array in a specified range") {
+                val array = forge.aCharArray(arraySize, 'a', 'z')
+
+                assertThat(String(array)).matches("[a-y]+")
+            }
+
+            it("forges a byte array with all values") {
+                val array = forge.aByteArray(arraySize)
+
+                assertThat(array.toSet()).hasSize(Byte.MAX_VALUE - Byte.MIN_VALUE + 1)
+            }
+
+            it("forges a byte array of any size") {
+                val size = forge.anInt(0, Long.SIZE_BYTES * 2)
+
+                val array = forge.aByteArray(size)
+
+                assertThat(array.size).isEqualTo(size)
+            }
+
+            it("forges arrays with a random size") {
+                assertThat(forge.anIntArray().size).isBetween(1, Forge.TINY_THRESHOLD)
+                assertThat(forge.aDoubleArray().size).isBetween(1, Forge.TINY_THRESHOLD)
+            }
+
+            it("fails if min >= max") {
+                val min = forge.anInt()
+                throws<IllegalArgumentException> {
+                    forge.anIntArray(arraySize, min, min)
+                }
+                throws<IllegalArgumentException> {
+                    forge.aLongArray(arraySize, 1L, 0L)
+                }
+                throws<IllegalArgumentException> {
+                    forge.aCharArray(arraySize, 'z', 'a')
+                }
+            }
+
+            it("fails if min > max") {
+                throws<IllegalArgumentException> {
+                    forge.aFloatArray(arraySize, 1f, 0f)
+                }
+                throws<IllegalArgumentException> {
+                    forge.aDoubleArray(arraySize, 1.0, 0.0)
+                }
+            }
+        }
+    }
+})
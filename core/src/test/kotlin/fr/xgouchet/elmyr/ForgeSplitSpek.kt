@@ -0,0 +1,163 @@
+package fr.xgouchet.elmyr
+
+import fr.xgouchet.elmyr.fixture.Foo
+import fr.xgouchet.elmyr.random.Xoroshiro128PlusPlusRandomSource
+import java.util.concurrent.Callable
+import java.util.concurrent.ForkJoinPool
+import java.util.stream.Collectors
+import org.assertj.core.api.Assertions.assertThat
+import org.spekframework.spek2.Spek
+import org.spekframework.spek2.style.specification.describe
+
+class ForgeSplitSpek : Spek({
+
+    describe("A forge") {
+        val forge = Forge()
+        var seed: Long
+
+        val testRepeatCountSmall = 16
+
+        beforeEachTest {
+            seed = Forge.seed()
+            forge.seed = seed
+        }
+
+        context("splitting") {
+
+            it("creates reproducible forges") {
+                val seed = forge.seed
+                val values = forge.fork(4).map { child -> List(testRepeatCountSmall) { child.aLong() } }
+
+                forge.seed = seed
+                val otherValues = forge.fork(4).map { child -> List(testRepeatCountSmall) { child.aLong() } }
+
+                assertThat(otherValues).isEqualTo(values)
+            }
+
+            it("creates independent forges") {
+                val children = forge.fork(8)
+
+                val seeds = children.map { it.seed }.toSet()
+                val firstValues = children.map { it.anInt() }.toSet()
+
+                assertThat(seeds).hasSize(children.size).doesNotContain(forge.seed)
+                assertThat(firstValues).hasSizeGreaterThan(1)
+            }
+
+            it("doesn't change the values of the parent forge") {
+                val seed = forge.seed
+                val values = List(testRepeatCountSmall) { forge.anInt() }
+
+                forge.seed = seed
+                forge.split()
+                val otherValues = List(testRepeatCountSmall) { forge.anInt() }
+
+                assertThat(otherValues).isEqualTo(values)
+            }
+
+            it("keeps the factories and the type of random source") {
+                val parent = Forge(Xoroshiro128PlusPlusRandomSource())
+                parent.addFactory(object : ForgeryFactory<Foo> {
+                    override fun getForgery(forge: Forge): Foo = Foo(forge.anInt())
+                })
+
+                val child = parent.split()
+                val foo: Foo = child.getForgery()
+
+                assertThat(foo).isNotNull()
+                child.seed = forge.seed
+                parent.seed = forge.seed
+                assertThat(child.aLong()).isEqualTo(parent.aLong())
+            }
+
+            it("generates the same values in parallel") {
+                val seed = forge.seed
+                val generate = {
+                    val tasks = forge.fork(16).map { child ->
+                        Callable { List(1024) { child.anAlphabeticalString() } }
+                    }
+                    ForkJoinPool.commonPool().invokeAll(tasks).flatMap { it.get() }
+                }
+
+                val values = generate()
+                forge.seed = seed
+                val otherValues = generate()
+
+                assertThat(otherValues).isEqualTo(values)
+            }
+
+            it("fails forking a negative count") {
+                throws<IllegalArgumentException> {
+                    forge.fork(-1)
+                }
+            }
+        }
+
+        context("generating in parallel") {
+
+            val parallelSize = 5000
+
+            it("generates the same list whatever the parallelism") {
+                val seed = forge.seed
+                val values = forge.aParallelList(parallelSize, 1) { anAlphabeticalString() }
+
+                forge.seed = seed
+                val otherValues = forge.aParallelList(parallelSize, 8) { anAlphabeticalString() }
+
+                assertThat(values).hasSize(parallelSize)
+                assertThat(otherValues).isEqualTo(values)
+            }
+
+            it("generates a stream with the same elements as the list") {
+                val seed = forge.seed
+                val values = forge.aParallelList(parallelSize) { aLong() }
+
+                forge.seed = seed
+                val streamed = forge.aParallelStream(parallelSize) { aLong() }.collect(Collectors.toList())
+
+                forge.seed = seed
+                val sequential = forge.aParallelStream(parallelSize) { aLong() }
+                    .sequential()
+                    .collect(Collectors.toList())
+
+                assertThat(streamed).isEqualTo(values)
+                assertThat(sequential).isEqualTo(values)
+                assertThat(values.toSet()).hasSizeGreaterThan(parallelSize - testRepeatCountSmall)
+            }
+
+            it("generates a list with a random size") {
+                val values = forge.aParallelList { anInt() }
+
+                assertThat(values).isNotEmpty()
+            }
+
+            it("forges a single chunk on the calling thread") {
+                val caller = Thread.currentThread()
+                val threads = forge.aParallelList(forge.anInt(1, Forge.PARALLEL_CHUNK_SIZE)) { Thread.currentThread() }
+
+                assertThat(threads.toSet()).containsOnly(caller)
+            }
+
+            it("uses at most the given number of threads") {
+                val threads = forge.aParallelList(parallelSize, 2) { Thread.currentThread() }
+
+                assertThat(threads.toSet().size).isBetween(1, 2)
+            }
+
+            it("propagates exceptions thrown while forging") {
+                throws<UnsupportedOperationException> {
+                    forge.aParallelList(parallelSize, 4) { throw UnsupportedOperationException() }
+                }
+                throws<UnsupportedOperationException> {
+                    forge.aParallelList(1, 4) { throw UnsupportedOperationException() }
+                }
+            }
+
+            it("fails with a non positive parallelism") {
+                throws<IllegalArgumentException> {
+                    forge.aParallelList(parallelSize, 0) { anInt() }
+                }
+            }
+        }
+    }
+})
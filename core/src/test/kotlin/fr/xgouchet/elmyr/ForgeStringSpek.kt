@@ -1,5 +1,11 @@
 package fr.xgouchet.elmyr
 
+import java.io.ByteArrayOutputStream
+import java.io.StringWriter
+import java.io.Writer
+import java.nio.channels.Channels
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
 import org.assertj.core.api.Assertions.assertThat
 import org.spekframework.spek2.Spek
 import org.spekframework.spek2.style.specification.describe
@@ -223,6 +229,308 @@ class ForgeStringSpek : Spek({
                     }
                 }
             }
+
+            it("compiles a regex once") {
+                val regex = "[a-z]{3}-${forge.aNumericalString(size = 8)}"
+
+                val factory = forge.compileRegex(regex)
+                val statsBefore = Forge.regexCacheStats()
+                val factory2 = forge.compileRegex(Regex(regex))
+                val statsAfter = Forge.regexCacheStats()
+
+                assertThat(factory2).isSameAs(factory)
+                assertThat(statsAfter.hitCount).isGreaterThan(statsBefore.hitCount)
+                repeat(testRepeatCountSmall) {
+                    assertThat(factory.getForgery(forge))
+                        .matches(regex)
+                }
+            }
+
+            it("shares a compiled regex with back references between threads") {
+                val regex = "(\\w{1,8})-(\\d{1,8})=\\2\\1"
+                val factory = forge.compileRegex(regex)
+                val threadCount = 8
+                val executor = Executors.newFixedThreadPool(threadCount)
+
+                try {
+                    val futures = (0 until threadCount).map {
+                        val threadForge = Forge().apply { seed = forge.aLong() }
+                        executor.submit(
+                            Callable {
+                                List(testRepeatCountSmall * testRepeatCountSmall) {
+                                    factory.getForgery(threadForge)
+                                }
+                            }
+                        )
+                    }
+
+                    futures.flatMap { it.get() }.forEach {
+                        assertThat(it).matches(regex)
+                    }
+                } finally {
+                    executor.shutdown()
+                }
+            }
+
+            it("forges a list of strings matching a regex") {
+                val regex = "([a-f]{2,4})_\\d+\\1"
+                val size = forge.anInt(1, 1024)
+
+                val list = forge.aListMatching(regex, size)
+
+                assertThat(list).hasSize(size)
+                list.forEach {
+                    assertThat(it).matches(regex)
+                }
+            }
+
+            it("forges a lazy sequence of strings matching a regex") {
+                val regex = "([a-f]{2,4})_\\d+\\1"
+                val size = forge.anInt(1, 1024)
+
+                val sequence = forge.aSequenceMatching(Regex(regex), size)
+
+                assertThat(sequence.count()).isEqualTo(size)
+                sequence.forEach {
+                    assertThat(it).matches(regex)
+                }
+            }
+
+            it("appends a string matching a regex to a builder") {
+                val prefix = forge.anAlphabeticalString()
+                val regex = "(\\d{3})-\\1"
+                val builder = StringBuilder(prefix)
+
+                val result = forge.appendMatching(regex, builder)
+
+                assertThat(result).isSameAs(builder)
+                assertThat(builder.toString()).startsWith(prefix)
+                assertThat(builder.substring(prefix.length)).matches(regex)
+            }
+
+            it("appends a string matching a regex to an appendable") {
+                val regex = "(\\d{3})-\\1"
+                val writer = StringWriter()
+
+                forge.appendMatching(Regex(regex), writer)
+                forge.appendMatching(regex, writer)
+
+                assertThat(writer.toString()).matches("$regex$regex".replace("\\1", "\\d{3}"))
+            }
+        }
+
+        context("forging strings matching unicode properties") {
+
+            it("forges letters from a script") {
+                repeat(testRepeatCountSmall) {
+                    val string = forge.aStringMatching("\\p{IsCyrillic}{8}")
+
+                    val scripts = string.codePoints().toArray().map { Character.UnicodeScript.of(it) }
+                    assertThat(scripts).containsOnly(Character.UnicodeScript.CYRILLIC)
+                }
+            }
+
+            it("forges supplementary code points as surrogate pairs") {
+                repeat(testRepeatCountSmall) {
+                    val string = forge.aStringMatching("\\p{IsGothic}{4}")
+
+                    assertThat(string).hasSize(8)
+                    assertThat(string.codePointCount(0, string.length)).isEqualTo(4)
+                    assertThat(string).matches("\\p{IsGothic}{4}")
+                }
+            }
+        }
+
+        context("streaming strings matching a regex") {
+
+            it("streams a huge string with back references to a writer") {
+                val regex = "([a-z]{20000})-(\\d{3}\\1){2}"
+                val writer = StringWriter()
+
+                forge.appendMatching(regex, writer)
+
+                assertThat(writer.toString()).matches(regex)
+            }
+
+            it("streams a huge string to a writer in bounded chunks") {
+                val writer = object : Writer() {
+                    var totalLength = 0
+                    var maxChunkLength = 0
+                    fun count(length: Int) {
+                        totalLength += length
+                        maxChunkLength = maxOf(maxChunkLength, length)
+                    }
+                    override fun write(cbuf: CharArray, off: Int, len: Int) = count(len)
+                    override fun append(csq: CharSequence?, start: Int, end: Int): Writer {
+                        count(end - start)
+                        return this
+                    }
+                    override fun flush() {}
+                    override fun close() {}
+                }
+
+                forge.appendMatching("(chunk-[0-9]{8}\n){50000}", writer)
+
+                assertThat(writer.totalLength).isEqualTo(15 * 50000)
+                assertThat(writer.maxChunkLength).isLessThanOrEqualTo(0x2000)
+            }
+
+            it("streams a string to a byte channel") {
+                val regex = Regex("[A-Zé]{1000}")
+                val outputStream = ByteArrayOutputStream()
+
+                forge.writeMatching(regex, Channels.newChannel(outputStream))
+
+                assertThat(outputStream.toString("UTF-8")).matches(regex.pattern)
+            }
+        }
+
+        context("forging strings matching a regex with a length constraint") {
+
+            it("forges a string with a length in range") {
+                val regexes = listOf(
+                    "[a-z]+@[a-z]{2,8}\\.(com|org|fr)",
+                    "(ab|c|def)*x?",
+                    "\\d{3}-(\\w{2,4}-)*\\d{3}"
+                )
+                regexes.forEach { regex ->
+                    repeat(testRepeatCountSmall) {
+                        val minLength = forge.anInt(16, 64)
+                        val maxLength = minLength + forge.aTinyInt()
+
+                        val string = forge.aStringMatching(regex, minLength, maxLength)
+
+                        assertThat(string).matches(regex)
+                        assertThat(string.length).isBetween(minLength, maxLength)
+                    }
+                }
+            }
+
+            it("forges a string with an exact length beyond the default repetitions") {
+                val regex = Regex("[a-f0-9]+(-[A-Z]{2,5})*")
+                val length = forge.anInt(1000, 2000)
+
+                val string = forge.aStringMatching(regex, length, length)
+
+                assertThat(string).matches(regex.pattern)
+                assertThat(string).hasSize(length)
+            }
+
+            it("fails if no string matching the regex fits in the range") {
+                throws<IllegalArgumentException> {
+                    forge.aStringMatching("[a-z]{3}|[0-9]{8}", 4, 7)
+                }
+            }
+
+            it("fails if min length > max length") {
+                throws<IllegalArgumentException> {
+                    forge.aStringMatching(".*", 10, 5)
+                }
+            }
+
+            it("fails with a back reference") {
+                throws<IllegalStateException> {
+                    forge.aStringMatching("(a+)b\\1", 5, 10)
+                }
+            }
+        }
+
+        context("forging strings uniformly matching a regex") {
+
+            it("forges a string with a length in range") {
+                val regex = "([a-z]+@[a-z]+\\.(com|org))(,[a-z]+@[a-z]+\\.(com|org))*"
+                repeat(testRepeatCountSmall) {
+                    val minLength = forge.anInt(16, 64)
+                    val maxLength = minLength + forge.aTinyInt()
+
+                    val string = forge.aUniformStringMatching(regex, minLength, maxLength)
+
+                    assertThat(string).matches(regex)
+                    assertThat(string.length).isBetween(minLength, maxLength)
+                }
+            }
+
+            it("doesn't favor small alternatives") {
+                val count = 11 * 256
+                var smallAlternativeCount = 0
+
+                repeat(count) {
+                    val string = forge.aUniformStringMatching(Regex("(x|[0-9])[a-z]"), 2, 2)
+                    if (string.startsWith("x")) smallAlternativeCount++
+                }
+
+                assertThat(smallAlternativeCount).isBetween(128, 384)
+            }
+
+            it("forges a string longer than the cached counts") {
+                val regex = "[a-z]*(-[0-9]{3})?"
+                val length = forge.anInt(Forge.MAX_UNIFORM_LENGTH / 2, Forge.MAX_UNIFORM_LENGTH + 1)
+
+                val string = forge.aUniformStringMatching(regex, length, length)
+
+                assertThat(string).matches(regex)
+                assertThat(string).hasSize(length)
+            }
+
+            it("fails with a maximum length above the limit") {
+                throws<IllegalArgumentException> {
+                    forge.aUniformStringMatching("[a-z]*", 0, forge.anInt(Forge.MAX_UNIFORM_LENGTH + 1))
+                }
+                throws<IllegalArgumentException> {
+                    forge.aUniformStringMatching("[a-z]*", 0, Int.MAX_VALUE)
+                }
+            }
+        }
+
+        context("forging strings not matching a regex") {
+
+            it("forges a string not matching the regex") {
+                val regex = "[a-z]+@[a-z]+\\.(com|org)"
+                repeat(testRepeatCountSmall) {
+                    val minLength = forge.aTinyInt()
+                    val maxLength = minLength + forge.aTinyInt()
+
+                    val string = forge.aStringNotMatching(regex, minLength, maxLength)
+
+                    assertThat(string).doesNotMatch(regex)
+                    assertThat(string.length).isBetween(minLength, maxLength)
+                }
+            }
+
+            it("forges a string longer than the cached counts") {
+                val regex = "[a-z]+@[a-z]+\\.(com|org)"
+                val length = forge.anInt(Forge.MAX_UNIFORM_LENGTH / 2, Forge.MAX_UNIFORM_LENGTH + 1)
+
+                val string = forge.aStringNotMatching(regex, length, length)
+
+                assertThat(string).doesNotMatch(regex)
+                assertThat(string).hasSize(length)
+            }
+
+            it("fails with a maximum length above the limit") {
+                throws<IllegalArgumentException> {
+                    forge.aStringNotMatching("[a-z]+", 0, forge.anInt(Forge.MAX_UNIFORM_LENGTH + 1))
+                }
+                throws<IllegalArgumentException> {
+                    forge.aStringNotMatching("[a-z]+", 0, Int.MAX_VALUE)
+                }
+            }
+
+            it("fails when every string matches") {
+                throws<IllegalArgumentException> {
+                    forge.aStringNotMatching(".*")
+                }
+            }
+
+            it("forges a string nearly matching the regex") {
+                val regex = Regex("[a-z]{3,5}-[0-9]{2}")
+                repeat(testRepeatCountSmall) {
+                    val string = forge.aStringNearlyMatching(regex)
+
+                    assertThat(string).doesNotMatch(regex.pattern)
+                    assertThat(string.length).isBetween(5, 9)
+                }
+            }
         }
 
         // endregion
@@ -0,0 +1,78 @@
+package fr.xgouchet.elmyr
+
+import org.assertj.core.api.Assertions.assertThat
+import org.spekframework.spek2.Spek
+import org.spekframework.spek2.style.specification.describe
+
+class SnapshotSamplerSpek : Spek({
+
+    describe("A snapshot sampler") {
+        val forge = Forge()
+        var seed: Long
+
+        val testRepeatCountSmall = 16
+
+        beforeEachTest {
+            seed = Forge.seed()
+            forge.seed = seed
+        }
+
+        context("picking elements from a set") {
+
+            it("picks elements uniformly") {
+                val set = List(forge.anInt(2, 64)) { it }.toSet()
+                val sampler = forge.samplerOf(set)
+
+                verifyUniformDistribution(set.size) { forge.anElementFrom(sampler) }
+            }
+
+            it("picks the same elements as anElementFrom()") {
+                val seed = forge.seed
+                val set = forge.aList { anAlphabeticalString() }.toSet()
+                val sampler = forge.samplerOf(set)
+                val values = List(testRepeatCountSmall) { forge.anElementFrom(sampler) }
+
+                forge.seed = seed
+                forge.aList { anAlphabeticalString() }
+                val otherValues = List(testRepeatCountSmall) { forge.anElementFrom(set) }
+
+                assertThat(values).isEqualTo(otherValues)
+            }
+
+            it("ignores changes made after the snapshot") {
+                val set = mutableSetOf("a", "b", "c")
+                val sampler = forge.samplerOf(set)
+
+                set.clear()
+                set.add("z")
+
+                assertThat(sampler.size).isEqualTo(3)
+                repeat(testRepeatCountSmall) {
+                    assertThat(sampler.getForgery(forge)).isIn("a", "b", "c")
+                }
+            }
+
+            it("fails without elements") {
+                throws<IllegalArgumentException> {
+                    forge.samplerOf(emptySet<String>())
+                }
+            }
+        }
+
+        context("picking entries from a map") {
+
+            it("picks the same entries as anEntryFrom()") {
+                val seed = forge.seed
+                val map = forge.aMap { anInt() to anHexadecimalString() }
+                val sampler = forge.samplerOf(map)
+                val values = List(testRepeatCountSmall) { forge.anElementFrom(sampler) }
+
+                forge.seed = seed
+                forge.aMap { anInt() to anHexadecimalString() }
+                val otherValues = List(testRepeatCountSmall) { forge.anEntryFrom(map) }
+
+                assertThat(values).isEqualTo(otherValues)
+            }
+        }
+    }
+})
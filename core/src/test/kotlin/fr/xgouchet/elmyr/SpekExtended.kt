@@ -1,6 +1,7 @@
 package fr.xgouchet.elmyr
 
 import kotlin.math.abs
+import kotlin.math.pow
 import kotlin.math.sqrt
 import org.assertj.core.api.Java6Assertions.assertThat
 import org.assertj.core.api.Java6Assertions.within
@@ -169,3 +170,90 @@ fun verifyProbability(
     assertThat(countTrue / count)
         .isCloseTo(expectedProbability, within(0.1))
 }
+
+/**
+ * Verifies that the values returned by an operation are uniformly distributed, with Pearson's
+ * chi-squared test (using a threshold of about 5 standard deviations above the expected statistic,
+ * to avoid flaky failures).
+ * @param bucketCount the number of possible values
+ * @param operation an operation returning a value between 0 (inclusive) and bucketCount (exclusive)
+ */
+fun verifyUniformDistribution(
+    bucketCount: Int,
+    operation: () -> Int
+) {
+    val countPerBucket = 1024
+    val counts = IntArray(bucketCount)
+
+    repeat(bucketCount * countPerBucket) { counts[operation()]++ }
+
+    val chiSquared = counts.sumOf { (it - countPerBucket).toDouble() * (it - countPerBucket) / countPerBucket }
+    val degreesOfFreedom = bucketCount - 1
+    val threshold = degreesOfFreedom + (5 * sqrt(2.0 * degreesOfFreedom))
+    assertThat(chiSquared)
+        .overridingErrorMessage(
+            "Expected a uniform distribution over $bucketCount values, " +
+                    "but the chi-squared statistic was <$chiSquared> (threshold <$threshold>)"
+        )
+        .isLessThanOrEqualTo(threshold)
+}
+
+/**
+ * Verifies that the values returned by an operation follow a continuous distribution, with the
+ * Kolmogorov-Smirnov test (using the critical value for a 0.1% significance level).
+ * @param cdf the cumulative distribution function of the expected distribution
+ * @param operation an operation returning a value
+ */
+fun verifyDistribution(
+    cdf: (Double) -> Double,
+    operation: () -> Double
+) {
+    val count = 4096
+    val values = DoubleArray(count) { operation() }.sorted()
+
+    var maxDistance = 0.0
+    values.forEachIndexed { i, x ->
+        val expected = cdf(x)
+        maxDistance = maxOf(maxDistance, abs(expected - (i.toDouble() / count)), abs(expected - ((i + 1.0) / count)))
+    }
+
+    val threshold = 1.95 / sqrt(count.toDouble())
+    assertThat(maxDistance)
+        .overridingErrorMessage(
+            "Expected values following the distribution, " +
+                    "but the Kolmogorov-Smirnov distance was <$maxDistance> (threshold <$threshold>)"
+        )
+        .isLessThanOrEqualTo(threshold)
+}
+
+/**
+ * Verifies that the values returned by an operation follow a discrete distribution, with Pearson's
+ * chi-squared test (using the Wilson-Hilferty approximation of the critical value for a 0.0003%
+ * significance level, which stays valid with few degrees of freedom).
+ * @param probabilities the expected probability of each value
+ * @param operation an operation returning a value between 0 (inclusive) and probabilities.size (exclusive)
+ */
+fun verifyDiscreteDistribution(
+    probabilities: DoubleArray,
+    operation: () -> Int
+) {
+    val count = probabilities.size * 1024
+    val counts = IntArray(probabilities.size)
+
+    repeat(count) { counts[operation()]++ }
+
+    val chiSquared = counts.indices.sumOf {
+        val expected = probabilities[it] * count
+        (counts[it] - expected) * (counts[it] - expected) / expected
+    }
+    val degreesOfFreedom = probabilities.size - 1.0
+    if (degreesOfFreedom < 1) return
+    val variance = 2 / (9 * degreesOfFreedom)
+    val threshold = degreesOfFreedom * (1 - variance + (4.5 * sqrt(variance))).pow(3)
+    assertThat(chiSquared)
+        .overridingErrorMessage(
+            "Expected values following the distribution, " +
+                    "but the chi-squared statistic was <$chiSquared> (threshold <$threshold>)"
+        )
+        .isLessThanOrEqualTo(threshold)
+}
@@ -0,0 +1,136 @@
+package fr.xgouchet.elmyr
+
+import org.assertj.core.api.Assertions.assertThat
+import org.spekframework.spek2.Spek
+import org.spekframework.spek2.style.specification.describe
+
+class WeightedSamplerSpek : Spek({
+
+    describe("A weighted sampler") {
+        val forge = Forge()
+        var seed: Long
+
+        val testRepeatCountSmall = 16
+
+        beforeEachTest {
+            seed = Forge.seed()
+            forge.seed = seed
+        }
+
+        context("picking elements") {
+
+            it("picks elements proportionally to their weight") {
+                val weights = List(forge.anInt(2, 64)) { forge.anInt(1, 100) }
+                val total = weights.sum().toDouble()
+                val sampler = WeightedSampler(weights.indices.zip(weights).toMap())
+
+                verifyDiscreteDistribution(DoubleArray(weights.size) { weights[it] / total }) {
+                    forge.anElementFrom(sampler)
+                }
+            }
+
+            it("picks elements with any kind of weight") {
+                val sampler = WeightedSampler(mapOf("a" to 1, "b" to 2L, "c" to 0.5f, "d" to 0.5))
+
+                verifyDiscreteDistribution(doubleArrayOf(0.25, 0.5, 0.125, 0.125)) {
+                    "abcd".indexOf(sampler.getForgery(forge))
+                }
+            }
+
+            it("never picks elements with a null weight") {
+                val sampler = WeightedSampler(mapOf("a" to 0, "b" to 1, "c" to 0))
+
+                repeat(testRepeatCountSmall) {
+                    assertThat(forge.anElementFrom(sampler)).isEqualTo("b")
+                }
+            }
+
+            it("picks the same elements with the same seed") {
+                val seed = forge.seed
+                val sampler = WeightedSampler(mapOf("a" to 1, "b" to 2, "c" to 3))
+                val values = List(testRepeatCountSmall) { forge.anElementFrom(sampler) }
+
+                forge.seed = seed
+                val otherValues = List(testRepeatCountSmall) { forge.anElementFrom(sampler) }
+
+                assertThat(otherValues).isEqualTo(values)
+            }
+
+            it("can be used as a factory") {
+                val otherForge = Forge()
+                otherForge.addFactory(String::class.java, WeightedSampler(mapOf("only" to 1)))
+
+                assertThat(otherForge.getForgery(String::class.java)).isEqualTo("only")
+            }
+
+            it("fails without elements") {
+                throws<IllegalArgumentException> {
+                    WeightedSampler(emptyMap<String, Int>())
+                }
+            }
+
+            it("fails with invalid weights") {
+                throws<IllegalArgumentException> {
+                    WeightedSampler(mapOf("a" to 1, "b" to -forge.aPositiveInt(strict = true)))
+                }
+                throws<IllegalArgumentException> {
+                    WeightedSampler(mapOf("a" to 1, "b" to Double.NaN))
+                }
+                throws<IllegalArgumentException> {
+                    WeightedSampler(mapOf("a" to 0, "b" to 0))
+                }
+            }
+        }
+
+        context("picking elements from an array with weights") {
+
+            it("picks elements proportionally to their weight") {
+                val array = arrayOf("a", "b", "c")
+
+                verifyDiscreteDistribution(doubleArrayOf(0.7, 0.2, 0.1)) {
+                    array.indexOf(forge.anElementFrom(array, doubleArrayOf(7.0, 2.0, 1.0)))
+                }
+            }
+
+            it("picks elements uniformly without weights") {
+                val array = Array(forge.anInt(2, 32)) { it }
+
+                verifyUniformDistribution(array.size) { forge.anElementFrom(array, doubleArrayOf()) }
+            }
+
+            it("adds the weights of duplicate elements") {
+                val array = arrayOf("a", "b", "a")
+
+                verifyDiscreteDistribution(doubleArrayOf(0.75, 0.25)) {
+                    if (forge.anElementFrom(array, doubleArrayOf(1.0, 1.0, 2.0)) == "a") 0 else 1
+                }
+            }
+
+            it("never picks elements with a null weight") {
+                val array = arrayOf("a", "b", "c")
+
+                repeat(testRepeatCountSmall) {
+                    assertThat(forge.anElementFrom(array, doubleArrayOf(0.0, 1.0, 0.0))).isEqualTo("b")
+                }
+            }
+
+            it("fails if the weights don't match the elements") {
+                throws<IllegalArgumentException> {
+                    forge.anElementFrom(arrayOf("a", "b"), doubleArrayOf(1.0))
+                }
+            }
+
+            it("fails with invalid weights, even on duplicate elements") {
+                throws<IllegalArgumentException> {
+                    forge.anElementFrom(arrayOf("a", "a"), doubleArrayOf(-1.0, 2.0))
+                }
+                throws<IllegalArgumentException> {
+                    forge.anElementFrom(arrayOf("a", "b"), doubleArrayOf(1.0, Double.POSITIVE_INFINITY))
+                }
+                throws<IllegalArgumentException> {
+                    forge.anElementFrom(arrayOf("a", "b"), doubleArrayOf(0.0, 0.0))
+                }
+            }
+        }
+    }
+})
@@ -0,0 +1,62 @@
+package fr.xgouchet.elmyr.random
+
+import fr.xgouchet.elmyr.Forge
+import fr.xgouchet.elmyr.throws
+import kotlin.math.abs
+import org.assertj.core.api.Assertions.assertThat
+import org.spekframework.spek2.Spek
+import org.spekframework.spek2.style.specification.describe
+
+class NormalDistributionSpek : Spek({
+
+    describe("The standard normal distribution") {
+
+        val forge = Forge()
+
+        beforeEachTest {
+            forge.seed = Forge.seed()
+        }
+
+        it("computes the cumulative distribution function") {
+            val expected = mapOf(
+                -3.0 to 0.0013498980316300946,
+                -1.0 to 0.15865525393145705,
+                0.0 to 0.5,
+                1.96 to 0.9750021048517795
+            )
+
+            expected.forEach { (x, p) ->
+                assertThat(abs(NormalDistribution.cdf(x) - p)).isLessThan(1e-15)
+            }
+        }
+
+        it("computes the inverse cumulative distribution function") {
+            repeat(1024) {
+                val p = forge.aDouble(1e-9, 1 - 1e-9)
+
+                val x = NormalDistribution.inverseCdf(p)
+
+                assertThat(abs(NormalDistribution.cdf(x) - p)).isLessThan(1e-14)
+            }
+        }
+
+        it("fails to inverse an impossible probability") {
+            throws<IllegalArgumentException> {
+                NormalDistribution.inverseCdf(0.0)
+            }
+            throws<IllegalArgumentException> {
+                NormalDistribution.inverseCdf(1.0)
+            }
+        }
+
+        it("samples a truncated distribution within its bounds") {
+            val bound = forge.aDouble(0.1, 5.0)
+            val truncated = NormalDistribution.Truncated(bound)
+            val source = SplitMix64RandomSource().apply { setSeed(Forge.seed()) }
+
+            repeat(1024) {
+                assertThat(truncated.next(source)).isBetween(-bound, bound)
+            }
+        }
+    }
+})
@@ -0,0 +1,104 @@
+package fr.xgouchet.elmyr.random
+
+import fr.xgouchet.elmyr.Forge
+import fr.xgouchet.elmyr.RandomSource
+import fr.xgouchet.elmyr.verifyDistribution
+import java.util.Random
+import java.util.SplittableRandom
+import org.assertj.core.api.Assertions.assertThat
+import org.spekframework.spek2.Spek
+import org.spekframework.spek2.style.specification.describe
+
+class RandomSourceSpek : Spek({
+
+    val sources = mapOf<String, () -> RandomSource>(
+        "java.util.Random" to { JavaUtilRandomSource() },
+        "SplitMix64" to { SplitMix64RandomSource() },
+        "xoroshiro128++" to { Xoroshiro128PlusPlusRandomSource() },
+        "PCG64" to { Pcg64RandomSource() }
+    )
+
+    val testRepeatCount = 1024
+
+    sources.forEach { (name, newSource) ->
+        describe("A $name random source") {
+
+            var seed = 0L
+
+            beforeEachTest {
+                seed = Forge.seed()
+            }
+
+            it("generates the same values with the same seed") {
+                val source = newSource().apply { setSeed(seed) }
+                val other = newSource().apply { setSeed(seed) }
+
+                repeat(testRepeatCount) {
+                    assertThat(source.nextLong()).isEqualTo(other.nextLong())
+                    assertThat(source.nextGaussian()).isEqualTo(other.nextGaussian())
+                }
+            }
+
+            it("generates different values with a different seed") {
+                val source = newSource().apply { setSeed(seed) }
+                val other = newSource().apply { setSeed(seed + 1) }
+
+                val values = List(testRepeatCount) { source.nextLong() }
+                val otherValues = List(testRepeatCount) { other.nextLong() }
+
+                assertThat(values).isNotEqualTo(otherValues)
+            }
+
+            it("generates floating point values in [0, 1)") {
+                val source = newSource().apply { setSeed(seed) }
+
+                repeat(testRepeatCount) {
+                    assertThat(source.nextFloat()).isGreaterThanOrEqualTo(0f).isLessThan(1f)
+                    assertThat(source.nextDouble()).isGreaterThanOrEqualTo(0.0).isLessThan(1.0)
+                }
+            }
+
+            it("generates reproducible forgeries") {
+                val forge = Forge(newSource()).apply { this.seed = seed }
+                val other = Forge(newSource()).apply { this.seed = seed }
+
+                repeat(testRepeatCount) {
+                    assertThat(forge.anInt()).isEqualTo(other.anInt())
+                    assertThat(forge.anAlphabeticalString()).isEqualTo(other.anAlphabeticalString())
+                }
+            }
+
+            it("generates normally distributed gaussian values") {
+                val source = newSource().apply { setSeed(seed) }
+
+                verifyDistribution({ NormalDistribution.cdf(it) }) { source.nextGaussian() }
+            }
+        }
+    }
+
+    describe("The default random source") {
+
+        it("generates the same values as java.util.Random") {
+            val seed = Forge.seed()
+            val source = JavaUtilRandomSource().apply { setSeed(seed) }
+            val random = Random(seed)
+
+            repeat(testRepeatCount) {
+                assertThat(source.nextLong()).isEqualTo(random.nextLong())
+            }
+        }
+    }
+
+    describe("A SplitMix64 random source") {
+
+        it("generates the same values as java.util.SplittableRandom") {
+            val seed = Forge.seed()
+            val source = SplitMix64RandomSource().apply { setSeed(seed) }
+            val random = SplittableRandom(seed)
+
+            repeat(testRepeatCount) {
+                assertThat(source.nextLong()).isEqualTo(random.nextLong())
+            }
+        }
+    }
+})
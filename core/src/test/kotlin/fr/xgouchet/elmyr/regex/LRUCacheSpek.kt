@@ -3,6 +3,9 @@ package fr.xgouchet.elmyr.regex
 import fr.xgouchet.elmyr.Forge
 import fr.xgouchet.elmyr.throws
 import java.util.Locale
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.atomic.AtomicInteger
 import org.assertj.core.api.Assertions.assertThat
 import org.spekframework.spek2.Spek
 import org.spekframework.spek2.style.specification.describe
@@ -95,6 +98,85 @@ class LRUCacheSpek : Spek({
                 assertThat(value).isEqualTo(key.reversed().lowercase(Locale.getDefault()))
                 assertThat(value2).isEqualTo(value)
             }
+
+            it("it keeps recently used value after multiple intermediate calls") {
+                val key = forge.anAlphabeticalString()
+
+                val value = cache.get(key)
+                for (i in 0 until capacity - 1) {
+                    @Suppress("UNUSED_VARIABLE")
+                    val intermediate = cache.get(forge.aNumericalString(i + 1))
+                }
+                @Suppress("UNUSED_VARIABLE")
+                val refresh = cache.get(key)
+                @Suppress("UNUSED_VARIABLE")
+                val intermediate = cache.get(forge.aNumericalString(capacity + 1))
+                factoryCalls = 0
+                val value2 = cache.get(key)
+
+                assertThat(factoryCalls).isEqualTo(0)
+                assertThat(value2).isEqualTo(value)
+            }
+
+            it("it doesn't cache factory failures") {
+                val key = forge.anAlphabeticalString()
+                var failingCalls = 0
+                val failingCache = LRUCache<String, String>(capacity) {
+                    failingCalls++
+                    throw IllegalStateException("Can't create value for $it")
+                }
+
+                throws<IllegalStateException> { failingCache.get(key) }
+                throws<IllegalStateException> { failingCache.get(key) }
+
+                assertThat(failingCalls).isEqualTo(2)
+                assertThat(failingCache.stats().size).isEqualTo(0)
+            }
+
+            it("it calls factory once for concurrent lookups") {
+                val key = forge.anAlphabeticalString()
+                val threadCount = forge.anInt(4, 16)
+                val startLatch = CountDownLatch(1)
+                val concurrentCalls = AtomicInteger(0)
+                val concurrentCache = LRUCache<String, String>(capacity) {
+                    concurrentCalls.incrementAndGet()
+                    Thread.sleep(10)
+                    it.reversed()
+                }
+                val values = ConcurrentLinkedQueue<String>()
+
+                val threads = List(threadCount) {
+                    Thread {
+                        startLatch.await()
+                        values.add(concurrentCache.get(key))
+                    }.apply { start() }
+                }
+                startLatch.countDown()
+                threads.forEach { it.join() }
+
+                assertThat(concurrentCalls.get()).isEqualTo(1)
+                assertThat(values).hasSize(threadCount)
+                    .containsOnly(key.reversed())
+            }
+
+            it("it counts hits, misses and evictions") {
+                val key = forge.anAlphabeticalString()
+
+                cache.get(key)
+                cache.get(key)
+                for (i in 0 until capacity) {
+                    cache.get(forge.aNumericalString(i + 1))
+                }
+                val stats = cache.stats()
+
+                assertThat(stats.capacity).isEqualTo(capacity)
+                assertThat(stats.size).isEqualTo(capacity)
+                assertThat(stats.hitCount).isEqualTo(1L)
+                assertThat(stats.missCount).isEqualTo(capacity + 1L)
+                assertThat(stats.createCount).isEqualTo(capacity + 1L)
+                assertThat(stats.evictionCount).isEqualTo(1L)
+                assertThat(stats.hitRate).isEqualTo(1.0 / (capacity + 2.0))
+            }
         }
     }
 })
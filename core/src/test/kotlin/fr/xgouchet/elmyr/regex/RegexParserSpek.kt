@@ -1,6 +1,8 @@
 package fr.xgouchet.elmyr.regex
 
 import fr.xgouchet.elmyr.Forge
+import fr.xgouchet.elmyr.regex.node.AlternationNode
+import fr.xgouchet.elmyr.regex.node.ParentNode
 import fr.xgouchet.elmyr.throws
 import org.assertj.core.api.Assertions.assertThat
 import org.spekframework.spek2.Spek
@@ -30,6 +32,7 @@ class RegexParserSpek : Spek({
                 "[a-",
                 "[]",
                 "(a)[\\1]",
+                "[^\\s\\S]",
 
                 // repetition
                 "a{}",
@@ -43,6 +46,13 @@ class RegexParserSpek : Spek({
                 "\\xf8e75",
                 "\\u8ab58",
 
+                // unicode properties
+                "\\p{Foo}",
+                "\\p{IsFoo}",
+                "\\p{L",
+                "\\p{}",
+                "[\\p{L]",
+
                 // groups
                 "(ab",
                 "ab)",
@@ -158,8 +168,11 @@ class RegexParserSpek : Spek({
                 // TODO nested range "[a-d[m-p]]+",
                 "[^abc]+",
                 "[^a-zA-Z0-9:\\-_.@$]+",
-                // TODO fix flakyness "[^\\w\\d]+",
-                // TODO fix flakyness "[^\\d]+",
+                "[^\\w\\d]+",
+                "[^\\d]+",
+                "[^,\\n\"]{1,200}",
+                "[^\\W]+",
+                "[^\\s\\x21-\\u9fff]+",
                 // TODO #57 Add support for Character Class Intersection
 
                 // Char class with escaped characters
@@ -209,6 +222,18 @@ class RegexParserSpek : Spek({
                 "\\s",
                 "\\S",
 
+                // Unicode properties
+                "\\p{L}+",
+                "\\p{Lu}\\p{Ll}{3}",
+                "\\pN\\PN",
+                "\\p{IsCyrillic}{2,5}",
+                "\\p{InGreek}",
+                "\\p{IsGothic}{3}",
+                "\\p{sc=Han}\\p{gc=Nd}",
+                "\\p{Alpha}\\p{Punct}\\p{XDigit}",
+                "[\\p{Lu}\\d_]+",
+                "\\P{IsLatin}+",
+
                 // dot metacharacter
                 ".",
                 "ba.",
@@ -233,6 +258,9 @@ class RegexParserSpek : Spek({
                 "(a((b)(c))(d))\\1\\2\\3\\4\\5",
                 "(\\d)(b)(c)(d)(\\d)(f)(g)(h)(\\d)(j)(k)(l)(m)(n)(\\d)(p)(q)(r)(s)(t)(\\d)(v)(w)(x)(y)(z)\\|\\1\\5\\9\\15\\21",
                 "(\\w)(\\d+(\\1))",
+                "(a|bc)+[x-z]?\\1",
+                "a(b)\\1+",
+                "(a)+(b)\\2",
 
                 // Complex use cases
                 "<([a-z]+)>([^<]*)</\\1>",
@@ -263,6 +291,152 @@ class RegexParserSpek : Spek({
             }
         }
 
+        context("forging from deeply nested regex") {
+
+            it("forges string matching deeply nested groups") {
+                val depth = forge.anInt(1024, 2048)
+                val regex = "(".repeat(depth) + "a|b" + ")".repeat(depth) + "\\1"
+                val factory = parser.getFactory(regex)
+
+                repeat(testRepeatCountSmall) {
+                    val res = factory.getForgery(forge)
+                    assertThat(res).isIn("aa", "bb")
+                }
+            }
+
+            it("forges string matching nested quantifiers") {
+                val factory = parser.getFactory("((a{2}){3}b){4}")
+
+                val res = factory.getForgery(forge)
+
+                assertThat(res).isEqualTo("aaaaaab".repeat(4))
+            }
+        }
+
+        context("forging from huge alternations") {
+
+            it("keeps all the alternatives in a single node") {
+                val words = (0 until 10000).map { "w$it" }
+                val regex = "(" + words.joinToString("|") + ")-[xy]"
+                val factory = parser.getFactory(regex)
+
+                val rootNode = factory.rootNode as ParentNode
+                val alternation = rootNode.flattenHierarchy().filterIsInstance<AlternationNode>().single()
+                assertThat(alternation.getChildNodes()).hasSize(words.size)
+                assertThat(alternation.literalAlternatives).containsExactlyElementsOf(words)
+                assertThat(factory.rootNode.toRegex()).isEqualTo("/$regex/")
+                repeat(testRepeatCountSmall) {
+                    val res = factory.getForgery(forge)
+                    assertThat(res.substringBefore('-')).isIn(words)
+                    assertThat(res).matches(regex)
+                }
+            }
+
+            it("picks all alternatives uniformly") {
+                val factory = parser.getFactory("a|b[xy]|c")
+                val count = 3 * 256
+                var bCount = 0
+
+                repeat(count) {
+                    if (factory.getForgery(forge).startsWith("b")) bCount++
+                }
+
+                assertThat(bCount).isBetween(128, 384)
+            }
+        }
+
+        context("forging characters from a class") {
+
+            it("picks all characters in a class uniformly") {
+                val factory = parser.getFactory("[a-zA-Z0-9_]")
+                val count = 63 * 256
+                val counts = mutableMapOf<Char, Int>()
+
+                repeat(count) {
+                    val char = factory.getForgery(forge).single()
+                    counts[char] = (counts[char] ?: 0) + 1
+                }
+
+                assertThat(counts).hasSize(63)
+                counts.values.forEach {
+                    assertThat(it).isBetween(128, 384)
+                }
+            }
+
+            it("picks all characters in a predefined class uniformly") {
+                val factory = parser.getFactory("\\w")
+                val count = 63 * 256
+                var underscoreCount = 0
+
+                repeat(count) {
+                    if (factory.getForgery(forge) == "_") underscoreCount++
+                }
+
+                assertThat(underscoreCount).isBetween(128, 384)
+            }
+        }
+
+        context("forging strings with a length constraint from a shared factory") {
+
+            it("reuses the factory with different lengths") {
+                val regex = "[a-f0-9]+(-[A-Z]{2,5})*"
+                val factory = parser.getFactory(regex) as RegexStringFactory
+
+                repeat(testRepeatCountSmall) {
+                    val minLength = forge.anInt(1, 1000)
+                    val maxLength = minLength + forge.aSmallInt()
+
+                    val res = factory.getForgery(forge, minLength, maxLength)
+
+                    assertThat(res).matches(regex)
+                    assertThat(res.length).isBetween(minLength, maxLength)
+                }
+            }
+
+            it("forges the same strings whatever the lengths requested before") {
+                val seed = forge.seed
+                val regex = "(ab|c|def)*x?"
+                val minLength = forge.anInt(1, 64)
+                val maxLength = minLength + forge.aTinyInt()
+                val factory = parser.getFactory(regex) as RegexStringFactory
+                factory.getForgery(forge, maxLength * 2, maxLength * 4)
+
+                forge.seed = seed
+                forge.anInt(1, 64)
+                forge.aTinyInt()
+                val res = factory.getForgery(forge, minLength, maxLength)
+
+                forge.seed = seed
+                forge.anInt(1, 64)
+                forge.aTinyInt()
+                val freshFactory = RegexParser().getFactory(regex) as RegexStringFactory
+                val freshRes = freshFactory.getForgery(forge, minLength, maxLength)
+
+                assertThat(res).isEqualTo(freshRes)
+            }
+
+            it("forges strings longer than the cached analysis") {
+                val seed = forge.seed
+                val regex = "(ab|c|def)*x?"
+                val length = RegexStringFactory.MAX_CACHED_LENGTH + forge.aSmallInt()
+                val factory = parser.getFactory(regex) as RegexStringFactory
+                factory.getForgery(forge, 0, forge.aTinyInt())
+
+                forge.seed = seed
+                forge.aSmallInt()
+                val res = factory.getForgery(forge, length, length)
+
+                forge.seed = seed
+                forge.aSmallInt()
+                val freshFactory = RegexParser().getFactory(regex) as RegexStringFactory
+                val freshRes = freshFactory.getForgery(forge, length, length)
+
+                assertThat(res).matches(regex)
+                assertThat(res).hasSize(length)
+                assertThat(res).isEqualTo(freshRes)
+            }
+        }
+
         // endregion
     }
 })
@@ -0,0 +1,80 @@
+package fr.xgouchet.elmyr.regex.automaton
+
+import fr.xgouchet.elmyr.Forge
+import fr.xgouchet.elmyr.regex.RegexParser
+import fr.xgouchet.elmyr.throws
+import org.assertj.core.api.Assertions.assertThat
+import org.spekframework.spek2.Spek
+import org.spekframework.spek2.style.specification.describe
+
+class DfaSpek : Spek({
+    describe("A DFA") {
+
+        val parser = RegexParser()
+        val forge = Forge()
+
+        val testRepeatCountSmall = 16
+
+        beforeEachTest {
+            forge.seed = Forge.seed()
+        }
+
+        context("built from a regex") {
+
+            it("accepts strings matching the regex") {
+                val regex = "(ab|a[b-d]*)+x{2,3}"
+                val dfa = parser.getFactory(regex).automaton
+
+                assertThat(dfa.accepts("abxx")).isTrue()
+                assertThat(dfa.accepts("aabcdddabxxx")).isTrue()
+                assertThat(dfa.accepts("ab")).isFalse()
+                assertThat(dfa.accepts("abxxxx")).isFalse()
+                assertThat(dfa.accepts("bxx")).isFalse()
+                repeat(testRepeatCountSmall) {
+                    assertThat(dfa.accepts(forge.aStringMatching(regex))).isTrue()
+                }
+            }
+
+            it("accepts the same strings as a Java regex") {
+                val regex = Regex("[^a-c]?[a-e]{1,2}")
+                val dfa = parser.getFactory(regex.pattern).automaton
+
+                listOf("", "a", "ee", "eee", "xab", "cab", "ab", "ሴe", "bሴ").forEach {
+                    assertThat(dfa.accepts(it)).isEqualTo(regex.matches(it))
+                }
+            }
+
+            it("is trimmed") {
+                val dfa = parser.getFactory("a(b|c)d|a(b|c)e").automaton
+
+                assertThat(dfa.stateCount).isEqualTo(4)
+                assertThat(dfa.isEmpty()).isFalse()
+            }
+
+            it("fails with a back reference") {
+                throws<IllegalStateException> {
+                    parser.getFactory("(a|b)c\\1").automaton
+                }
+            }
+        }
+
+        context("complemented") {
+
+            it("rejects the strings accepted by the original automaton") {
+                val regex = Regex("[a-c]+x?")
+                val dfa = parser.getFactory(regex.pattern).automaton
+                val complement = dfa.complement()
+
+                listOf("", "a", "abx", "x", "xa", "abxx", "cxb", "ax").forEach {
+                    assertThat(complement.accepts(it)).isEqualTo(!regex.matches(it))
+                }
+            }
+
+            it("is empty when the original automaton accepts everything") {
+                val dfa = parser.getFactory("[a-c]*").automaton
+
+                assertThat(dfa.complement().isEmpty()).isTrue()
+            }
+        }
+    }
+})
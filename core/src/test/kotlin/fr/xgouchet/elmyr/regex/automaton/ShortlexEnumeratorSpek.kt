@@ -0,0 +1,77 @@
+package fr.xgouchet.elmyr.regex.automaton
+
+import fr.xgouchet.elmyr.regex.RegexParser
+import org.assertj.core.api.Assertions.assertThat
+import org.spekframework.spek2.Spek
+import org.spekframework.spek2.style.specification.describe
+
+class ShortlexEnumeratorSpek : Spek({
+    describe("A shortlex enumerator") {
+
+        val parser = RegexParser()
+
+        fun enumerator(regex: String) = ShortlexEnumerator(parser.getFactory(regex).automaton)
+
+        context("enumerating a finite language") {
+
+            it("enumerates all matches once, in order") {
+                val matches = enumerator("[01]{2}-(a|b|c)").enumerate(null, Long.MAX_VALUE).toList()
+
+                assertThat(matches).hasSize(12)
+                assertThat(matches).doesNotHaveDuplicates()
+                assertThat(matches).isSorted()
+                assertThat(matches.first()).isEqualTo("00-a")
+                assertThat(matches.last()).isEqualTo("11-c")
+            }
+
+            it("enumerates shorter matches first") {
+                val matches = enumerator("(a|bb){2}").enumerate(null, Long.MAX_VALUE).toList()
+
+                assertThat(matches).containsExactly("aa", "abb", "bba", "bbbb")
+            }
+
+            it("enumerates the same strings as a brute force search") {
+                val regex = Regex("(a|b[ab]?)c?[ab]")
+                val bruteForce = mutableListOf<String>()
+                var candidates = listOf("")
+                repeat(6) {
+                    bruteForce.addAll(candidates.filter { regex.matches(it) })
+                    candidates = candidates.flatMap { prefix -> "abc".map { prefix + it } }
+                }
+
+                val matches = enumerator(regex.pattern).enumerate(null, Long.MAX_VALUE).toList()
+
+                assertThat(matches).isEqualTo(bruteForce)
+            }
+        }
+
+        context("enumerating an infinite language") {
+
+            it("enumerates matches lazily up to the limit") {
+                val matches = enumerator("(ab|c)*").enumerate(null, 8).toList()
+
+                assertThat(matches).containsExactly("", "c", "ab", "cc", "abc", "cab", "ccc", "abab")
+            }
+        }
+
+        context("resuming an enumeration") {
+
+            it("resumes after the last enumerated match") {
+                val enumerator = enumerator("[a-c]{1,3}")
+                val firstPage = enumerator.enumerate(null, 10).toList()
+
+                val secondPage = enumerator.enumerate(firstPage.last(), 10).toList()
+
+                assertThat(secondPage).hasSize(10)
+                assertThat(firstPage + secondPage)
+                    .isEqualTo(enumerator.enumerate(null, 20).toList())
+            }
+
+            it("resumes after a string not matching") {
+                val matches = enumerator("x{2,3}|y").enumerate("zz", Long.MAX_VALUE).toList()
+
+                assertThat(matches).containsExactly("xxx")
+            }
+        }
+    }
+})
@@ -0,0 +1,96 @@
+package fr.xgouchet.elmyr.regex.automaton
+
+import fr.xgouchet.elmyr.Forge
+import fr.xgouchet.elmyr.regex.RegexParser
+import java.math.BigInteger
+import org.assertj.core.api.Assertions.assertThat
+import org.spekframework.spek2.Spek
+import org.spekframework.spek2.style.specification.describe
+
+class UniformSamplerSpek : Spek({
+    describe("A uniform sampler") {
+
+        val parser = RegexParser()
+        val forge = Forge()
+
+        beforeEachTest {
+            forge.seed = Forge.seed()
+        }
+
+        context("counting matches") {
+
+            it("counts matches of a finite language") {
+                val sampler = UniformSampler(parser.getFactory("[01]{3}-(a|b|c)").automaton)
+
+                assertThat(sampler.countMatches(5)).isEqualTo(BigInteger.valueOf(24))
+                assertThat(sampler.countMatches(4)).isEqualTo(BigInteger.ZERO)
+            }
+
+            it("counts matches beyond 64 bits") {
+                val sampler = UniformSampler(parser.getFactory("[0-9a-f]*").automaton)
+
+                assertThat(sampler.countMatches(32)).isEqualTo(BigInteger.valueOf(16).pow(32))
+            }
+
+            it("counts supplementary code points as two chars") {
+                val sampler = UniformSampler(parser.getFactory("a|\uD801\uDC00|\uD801\uDC01|\uD801\uDC02").automaton)
+
+                assertThat(sampler.countMatches(1)).isEqualTo(BigInteger.ONE)
+                assertThat(sampler.countMatches(2)).isEqualTo(BigInteger.valueOf(3))
+            }
+        }
+
+        context("picking matches") {
+
+            it("picks all matches of a length with the same probability") {
+                val sampler = UniformSampler(parser.getFactory("[ab]*c[ab]*").automaton)
+                val count = 5 * 1024
+                val positions = IntArray(5)
+
+                repeat(count) {
+                    val builder = StringBuilder()
+                    sampler.generate(forge, 5, 5, builder)
+                    positions[builder.indexOf("c")]++
+                }
+
+                positions.forEach {
+                    assertThat(it).isBetween(768, 1280)
+                }
+            }
+
+            it("picks the same matches whatever the counts cached before") {
+                val regex = "[ab]*c[ab]*"
+                val maxCachedLength = UniformSampler.MAX_CACHED_LENGTH
+                val length = forge.anInt(maxCachedLength + 1, 2 * maxCachedLength)
+                val seed = forge.seed
+                forge.seed = seed
+                val builder = StringBuilder()
+                UniformSampler(parser.getFactory(regex).automaton).generate(forge, length, length, builder)
+
+                val otherSampler = UniformSampler(parser.getFactory(regex).automaton)
+                otherSampler.generate(forge, 0, maxCachedLength, StringBuilder())
+                forge.seed = seed
+                val otherBuilder = StringBuilder()
+                otherSampler.generate(forge, length, length, otherBuilder)
+
+                assertThat(otherBuilder.toString()).isEqualTo(builder.toString())
+                assertThat(otherSampler.countMatches(length))
+                    .isEqualTo(BigInteger.valueOf(length.toLong()).shiftLeft(length - 1))
+            }
+
+            it("picks matches with a length in chars") {
+                val regex = "(a|\\p{IsGothic})*"
+                val sampler = UniformSampler(parser.getFactory(regex).automaton)
+
+                repeat(16) {
+                    val length = forge.anInt(0, 32)
+                    val builder = StringBuilder()
+                    sampler.generate(forge, length, length, builder)
+
+                    assertThat(builder.length).isEqualTo(length)
+                    assertThat(builder.toString()).matches(regex)
+                }
+            }
+        }
+    }
+})
@@ -0,0 +1,107 @@
+package fr.xgouchet.elmyr.regex.charset
+
+import fr.xgouchet.elmyr.Forge
+import org.assertj.core.api.Assertions.assertThat
+import org.spekframework.spek2.Spek
+import org.spekframework.spek2.style.specification.describe
+
+class CharRangeSetSpek : Spek({
+    describe("A char range set") {
+
+        val forge = Forge()
+
+        val testRepeatCountSmall = 16
+
+        beforeEachTest {
+            forge.seed = Forge.seed()
+        }
+
+        context("being built") {
+
+            it("merges overlapping and adjacent ranges") {
+                val set = CharRangeSet.Builder()
+                    .addRange('m'.code, 'z'.code)
+                    .addRange('a'.code, 'f'.code)
+                    .addRange('d'.code, 'k'.code)
+                    .addChar('l'.code)
+                    .build()
+
+                assertThat(set).isEqualTo(CharRangeSet.range('a'.code, 'z'.code))
+                assertThat(set.rangeCount).isEqualTo(1)
+                assertThat(set.size).isEqualTo(26)
+            }
+
+            it("keeps disjoint ranges sorted") {
+                val set = CharRangeSet.of('z', '_', 'a')
+
+                assertThat(set.rangeCount).isEqualTo(3)
+                assertThat(set.codePointAt(0)).isEqualTo('_'.code)
+                assertThat(set.codePointAt(1)).isEqualTo('a'.code)
+                assertThat(set.codePointAt(2)).isEqualTo('z'.code)
+            }
+        }
+
+        context("combining sets") {
+
+            it("computes the union of two sets") {
+                val set = CharRangeSet.range('a'.code, 'f'.code)
+                    .union(CharRangeSet.range('0'.code, '9'.code))
+
+                assertThat(set.size).isEqualTo(16)
+                assertThat('c'.code in set).isTrue()
+                assertThat('5'.code in set).isTrue()
+                assertThat('g'.code in set).isFalse()
+            }
+
+            it("computes the difference of two sets") {
+                val set = CharRangeSet.range('a'.code, 'z'.code) - CharRangeSet.of('a', 'm', 'n', 'z')
+
+                assertThat(set.size).isEqualTo(22)
+                assertThat(set.rangeCount).isEqualTo(2)
+                assertThat('a'.code in set).isFalse()
+                assertThat('b'.code in set).isTrue()
+                assertThat('m'.code in set).isFalse()
+                assertThat('y'.code in set).isTrue()
+                assertThat('z'.code in set).isFalse()
+            }
+
+            it("excludes illegal chars from the printable set") {
+                Forge.ILLEGAL_UTF8_CHARS.forEach {
+                    assertThat(it.code in CharRangeSet.PRINTABLE).isFalse()
+                }
+                assertThat(Forge.MIN_PRINTABLE.code in CharRangeSet.PRINTABLE).isTrue()
+                assertThat(Forge.MAX_UTF8.code in CharRangeSet.PRINTABLE).isFalse()
+            }
+        }
+
+        context("picking characters") {
+
+            it("picks a character in the set") {
+                val set = CharRangeSet.PRINTABLE - CharRangeSet.of(',', '\n', '"')
+
+                repeat(testRepeatCountSmall) {
+                    val codePoint = set.aCodePoint(forge)
+
+                    assertThat(codePoint in set).isTrue()
+                    assertThat(codePoint).isNotEqualTo(','.code)
+                        .isNotEqualTo('"'.code)
+                }
+            }
+
+            it("picks all characters with the same probability") {
+                val set = CharRangeSet.Builder()
+                    .addRange('a'.code, 'z'.code)
+                    .addChar('_'.code)
+                    .build()
+                val count = 27 * 256
+                var underscoreCount = 0
+
+                repeat(count) {
+                    if (set.aCodePoint(forge) == '_'.code) underscoreCount++
+                }
+
+                assertThat(underscoreCount).isBetween(128, 384)
+            }
+        }
+    }
+})
@@ -0,0 +1,50 @@
+package fr.xgouchet.elmyr.regex.length
+
+import org.assertj.core.api.Assertions.assertThat
+import org.spekframework.spek2.Spek
+import org.spekframework.spek2.style.specification.describe
+
+class LengthSetSpek : Spek({
+    describe("A length set") {
+
+        context("adding lengths") {
+
+            it("ignores lengths above the max length") {
+                val set = LengthSet.of(100, 0, 63, 64, 100, 101, 1000)
+
+                assertThat(set.size()).isEqualTo(4)
+                assertThat(63 in set).isTrue()
+                assertThat(64 in set).isTrue()
+                assertThat(101 in set).isFalse()
+            }
+
+            it("adds shifted lengths across words") {
+                val set = LengthSet(200)
+
+                set.addAll(LengthSet.of(200, 0, 1, 60, 130), 70)
+
+                assertThat(set).isEqualTo(LengthSet.of(200, 70, 71, 130, 200))
+            }
+
+            it("iterates over lengths") {
+                val set = LengthSet.of(300, 3, 70, 299)
+
+                assertThat(set.nextLength(0)).isEqualTo(3)
+                assertThat(set.nextLength(4)).isEqualTo(70)
+                assertThat(set.nextLength(71)).isEqualTo(299)
+                assertThat(set.nextLength(300)).isEqualTo(-1)
+                assertThat(set.singleLength()).isEqualTo(-1)
+                assertThat(LengthSet.of(300, 42).singleLength()).isEqualTo(42)
+            }
+        }
+
+        context("combining sets") {
+
+            it("computes the sums of two sets") {
+                val set = LengthSet.of(128, 0, 2, 64) + LengthSet.of(128, 1, 63)
+
+                assertThat(set).isEqualTo(LengthSet.of(128, 1, 3, 63, 65, 127))
+            }
+        }
+    }
+})
@@ -1,6 +1,5 @@
 package fr.xgouchet.elmyr.regex.node
 
-import fr.xgouchet.elmyr.Forge
 import org.assertj.core.api.Assertions.assertThat
 import org.spekframework.spek2.Spek
 import org.spekframework.spek2.style.specification.describe
@@ -11,8 +10,6 @@ import org.spekframework.spek2.style.specification.describe
 class ChildNodeSpek : Spek({
 
     val stranger = object : BaseParentNode() {
-        override fun build(forge: Forge, builder: StringBuilder) {}
-
         override fun toRegex(): String = "?"
     }
 
@@ -21,8 +18,6 @@ class ChildNodeSpek : Spek({
         context("with parent not child node and not root node") {
 
             val parent = object : BaseParentNode() {
-                override fun build(forge: Forge, builder: StringBuilder) {}
-
                 override fun toRegex(): String = "?"
             }
 
@@ -30,8 +25,6 @@ class ChildNodeSpek : Spek({
 
                 override fun getParent(): ParentNode = parent
 
-                override fun build(forge: Forge, builder: StringBuilder) {}
-
                 override fun toRegex(): String = "?"
             }
 
@@ -47,16 +40,12 @@ class ChildNodeSpek : Spek({
         context("with deep hierachy") {
 
             val parent = object : BaseParentNode() {
-                override fun build(forge: Forge, builder: StringBuilder) {}
-
                 override fun toRegex(): String = "?"
             }
 
             val childNode = object : ChildNode {
                 override fun getParent(): ParentNode = parent
 
-                override fun build(forge: Forge, builder: StringBuilder) {}
-
                 override fun toRegex(): String = "?"
             }
 
@@ -71,16 +60,12 @@ class ChildNodeSpek : Spek({
         context("with parent not child node and not root node") {
 
             val parent = object : BaseParentNode() {
-                override fun build(forge: Forge, builder: StringBuilder) {}
-
                 override fun toRegex(): String = "?"
             }
 
             val childNode = object : BaseParentNode(), ChildNode {
                 override fun getParent(): ParentNode = parent
 
-                override fun build(forge: Forge, builder: StringBuilder) {}
-
                 override fun toRegex(): String = "?"
             }
 
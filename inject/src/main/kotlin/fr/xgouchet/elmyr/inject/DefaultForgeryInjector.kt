@@ -293,31 +293,31 @@ class DefaultForgeryInjector : ForgeryInjector {
     ): Any? {
         return when {
             annotation.string.isNotEmpty() -> {
-                val usingAnnotation = forge.anElementFrom(*annotation.string)
+                val usingAnnotation = forge.anElementFrom(annotation.string, annotation.weights)
                 getStringForgery(forge, usingAnnotation, property)
             }
             annotation.int.isNotEmpty() -> {
-                val usingAnnotation = forge.anElementFrom(*annotation.int)
+                val usingAnnotation = forge.anElementFrom(annotation.int, annotation.weights)
                 getIntForgery(forge, usingAnnotation, property)
             }
             annotation.long.isNotEmpty() -> {
-                val usingAnnotation = forge.anElementFrom(*annotation.long)
+                val usingAnnotation = forge.anElementFrom(annotation.long, annotation.weights)
                 getLongForgery(forge, usingAnnotation, property)
             }
             annotation.float.isNotEmpty() -> {
-                val usingAnnotation = forge.anElementFrom(*annotation.float)
+                val usingAnnotation = forge.anElementFrom(annotation.float, annotation.weights)
                 getFloatForgery(forge, usingAnnotation, property)
             }
             annotation.double.isNotEmpty() -> {
-                val usingAnnotation = forge.anElementFrom(*annotation.double)
+                val usingAnnotation = forge.anElementFrom(annotation.double, annotation.weights)
                 getDoubleForgery(forge, usingAnnotation, property)
             }
             annotation.map.isNotEmpty() -> {
-                val usingAnnotation = forge.anElementFrom(*annotation.map)
+                val usingAnnotation = forge.anElementFrom(annotation.map, annotation.weights)
                 getMapForgery(forge, usingAnnotation, property)
             }
             annotation.pair.isNotEmpty() -> {
-                val usingAnnotation = forge.anElementFrom(*annotation.pair)
+                val usingAnnotation = forge.anElementFrom(annotation.pair, annotation.weights)
                 getPairForgery(forge, usingAnnotation, property)
             }
             else -> getForgery(forge, property)
@@ -363,6 +363,7 @@ class KotlinForgeryInjectorTest {
         }
         assertThat(injected.publicMultipleRangesInt).matches { it in 20..30 || it in 100..110 }
         assertThat(injected.publicMultipleMeansInt).matches { abs(abs(it) - 100) <= 30 }
+        assertThat(injected.publicWeightedRangesInt).isBetween(100, 110)
         assertThat(injected.publicMultipleRangesLong).matches { it in 20L..30L || it in 100L..110L }
         assertThat(injected.publicMultipleMeansLong).matches { abs(abs(it) - 100L) <= 30L }
         assertThat(injected.publicMultipleRangesFloat).matches { it in 20f..30f || it in 100f..110f }
@@ -42,6 +42,15 @@ internal class KotlinInjectedAdvanced {
     )
     var publicMultipleMeansInt: Int = 0
 
+    @AdvancedForgery(
+        int = [
+            IntForgery(20, 30),
+            IntForgery(100, 110)
+        ],
+        weights = [0.0, 1.0]
+    )
+    var publicWeightedRangesInt: Int = 0
+
     @AdvancedForgery(
         long = [
             LongForgery(20L, 30L),
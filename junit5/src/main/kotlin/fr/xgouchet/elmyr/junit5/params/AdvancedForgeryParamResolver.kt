@@ -55,7 +55,7 @@ internal object AdvancedForgeryParamResolver : ForgeryResolver {
         type: Type,
         forge: Forge
     ): Any? {
-        val usingAnnotation = forge.anElementFrom(*annotation.double)
+        val usingAnnotation = forge.anElementFrom(annotation.double, annotation.weights)
         return DoubleForgeryParamResolver.resolveParameter(
             usingAnnotation,
             type,
@@ -68,7 +68,7 @@ internal object AdvancedForgeryParamResolver : ForgeryResolver {
         type: Type,
         forge: Forge
     ): Any? {
-        val usingAnnotation = forge.anElementFrom(*annotation.float)
+        val usingAnnotation = forge.anElementFrom(annotation.float, annotation.weights)
         return FloatForgeryParamResolver.resolveParameter(
             usingAnnotation,
             type,
@@ -81,7 +81,7 @@ internal object AdvancedForgeryParamResolver : ForgeryResolver {
         type: Type,
         forge: Forge
     ): Any? {
-        val usingAnnotation = forge.anElementFrom(*annotation.long)
+        val usingAnnotation = forge.anElementFrom(annotation.long, annotation.weights)
         return LongForgeryParamResolver.resolveParameter(
             usingAnnotation,
             type,
@@ -94,7 +94,7 @@ internal object AdvancedForgeryParamResolver : ForgeryResolver {
         type: Type,
         forge: Forge
     ): Any? {
-        val usingAnnotation = forge.anElementFrom(*annotation.int)
+        val usingAnnotation = forge.anElementFrom(annotation.int, annotation.weights)
         return IntForgeryParamResolver.resolveParameter(
             usingAnnotation,
             type,
@@ -107,7 +107,7 @@ internal object AdvancedForgeryParamResolver : ForgeryResolver {
         type: Type,
         forge: Forge
     ): Any? {
-        val usingAnnotation = forge.anElementFrom(*annotation.string)
+        val usingAnnotation = forge.anElementFrom(annotation.string, annotation.weights)
         return StringForgeryParamResolver.resolveParameter(
             usingAnnotation,
             type,
@@ -120,7 +120,7 @@ internal object AdvancedForgeryParamResolver : ForgeryResolver {
         type: Type,
         forge: Forge
     ): Map<Any?, Any?> {
-        val usingAnnotation = forge.anElementFrom(*annotation.map)
+        val usingAnnotation = forge.anElementFrom(annotation.map, annotation.weights)
         return MapForgeryParamResolver.resolveMapParameter(
             usingAnnotation,
             type,
@@ -133,7 +133,7 @@ internal object AdvancedForgeryParamResolver : ForgeryResolver {
         type: Type,
         forge: Forge
     ): Pair<Any?, Any?> {
-        val usingAnnotation = forge.anElementFrom(*annotation.pair)
+        val usingAnnotation = forge.anElementFrom(annotation.pair, annotation.weights)
         return PairForgeryParamResolver.resolvePairParameter(
             usingAnnotation,
             type,
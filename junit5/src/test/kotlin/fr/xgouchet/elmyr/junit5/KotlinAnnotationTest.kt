@@ -388,6 +388,16 @@ internal open class KotlinAnnotationTest {
         assertThat(i).matches { it in 4 until 15 || it in 23 until 42 }
     }
 
+    @Test
+    fun injectAdvancedWeightedInt(
+        @AdvancedForgery(
+            int = [IntForgery(4, 15), IntForgery(23, 42)],
+            weights = [1.0, 0.0]
+        ) i: Int
+    ) {
+        assertThat(i).isBetween(4, 14)
+    }
+
     @Test
     fun injectAdvancedIntList(
         @AdvancedForgery(
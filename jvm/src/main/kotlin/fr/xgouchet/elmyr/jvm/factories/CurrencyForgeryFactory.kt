@@ -2,6 +2,7 @@ package fr.xgouchet.elmyr.jvm.factories
 
 import fr.xgouchet.elmyr.Forge
 import fr.xgouchet.elmyr.ForgeryFactory
+import fr.xgouchet.elmyr.SnapshotSampler
 import java.util.Currency
 
 /**
@@ -11,9 +12,10 @@ import java.util.Currency
 class CurrencyForgeryFactory :
     ForgeryFactory<Currency> {
 
+    private val availableCurrencies by lazy { SnapshotSampler(Currency.getAvailableCurrencies()) }
+
     /** @inheritdoc */
     override fun getForgery(forge: Forge): Currency {
-        val availableCurrencies = Currency.getAvailableCurrencies()
         return forge.anElementFrom(availableCurrencies)
     }
 }
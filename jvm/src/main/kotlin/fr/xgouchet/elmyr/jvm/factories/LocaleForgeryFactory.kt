@@ -2,6 +2,7 @@ package fr.xgouchet.elmyr.jvm.factories
 
 import fr.xgouchet.elmyr.Forge
 import fr.xgouchet.elmyr.ForgeryFactory
+import fr.xgouchet.elmyr.SnapshotSampler
 import java.util.Locale
 
 /**
@@ -11,9 +12,10 @@ import java.util.Locale
 class LocaleForgeryFactory :
     ForgeryFactory<Locale> {
 
+    private val availableLocales by lazy { SnapshotSampler(Locale.getAvailableLocales().asList()) }
+
     /** @inheritdoc */
     override fun getForgery(forge: Forge): Locale {
-        val availableLocales = Locale.getAvailableLocales()
-        return forge.anElementFrom(*availableLocales)
+        return forge.anElementFrom(availableLocales)
     }
 }
@@ -2,6 +2,7 @@ package fr.xgouchet.elmyr.jvm.factories
 
 import fr.xgouchet.elmyr.Forge
 import fr.xgouchet.elmyr.ForgeryFactory
+import fr.xgouchet.elmyr.SnapshotSampler
 import java.util.TimeZone
 
 /**
@@ -11,10 +12,11 @@ import java.util.TimeZone
 class TimeZoneForgeryFactory :
     ForgeryFactory<TimeZone> {
 
+    private val availableIds by lazy { SnapshotSampler(TimeZone.getAvailableIDs().asList()) }
+
     /** @inheritdoc */
     override fun getForgery(forge: Forge): TimeZone {
-        val availableIds = TimeZone.getAvailableIDs()
-        val timeZoneId = forge.anElementFrom(*availableIds)
+        val timeZoneId = forge.anElementFrom(availableIds)
         return TimeZone.getTimeZone(timeZoneId)
     }
 }